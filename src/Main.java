@@ -1,7 +1,106 @@
+import com.patulus.huffmancoding.cache.ResultCache;
+import com.patulus.huffmancoding.compressor.CompressionEstimate;
+import com.patulus.huffmancoding.compressor.Compressor;
+import com.patulus.huffmancoding.daemon.SpoolDaemon;
+import com.patulus.huffmancoding.decompressor.SearchHit;
+import com.patulus.huffmancoding.decompressor.Searcher;
 import com.patulus.huffmancoding.gui.MainFrame;
+import com.patulus.huffmancoding.server.CompressionServer;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Main {
+    /** 압축 결과 캐시의 기본 크기 한도(바이트)입니다. */
+    private static final long DEFAULT_CACHE_BYTES = 1L << 30;
+
     public static void main(String[] args) throws Exception {
+        // server [포트]: GUI 없이 압축 서버를 실행합니다.
+        if (args.length > 0 && args[0].equals("server")) {
+            int port = (args.length > 1) ? Integer.parseInt(args[1]) : CompressionServer.DEFAULT_PORT;
+            new CompressionServer(port).start();
+            return;
+        }
+
+        // analyze <파일 또는 디렉터리>...: 압축 파일을 만들지 않고 압축 결과의 크기만 계산합니다.
+        if (args.length > 0 && args[0].equals("analyze")) {
+            for (int i = 1; i < args.length; ++i) {
+                analyze(new File(args[i]));
+            }
+            return;
+        }
+
+        // daemon [--cache <캐시 디렉터리>] <디렉터리>...: 스풀 디렉터리에 들어오는 파일을 계속 압축합니다.
+        if (args.length > 1 && args[0].equals("daemon")) {
+            int first = 1;
+            ResultCache cache = null;
+            if (args[1].equals("--cache") && args.length > 3) {
+                cache = new ResultCache(Path.of(args[2]), DEFAULT_CACHE_BYTES);
+                first = 3;
+            }
+
+            List<Path> dirs = new ArrayList<>();
+            for (int i = first; i < args.length; ++i) {
+                dirs.add(Path.of(args[i]));
+            }
+
+            SpoolDaemon daemon = new SpoolDaemon(dirs, Runtime.getRuntime().availableProcessors());
+            daemon.setCache(cache);
+            daemon.start();
+            // 처리 현황을 주기적으로 출력합니다.
+            while (true) {
+                Thread.sleep(10000);
+                System.out.println(daemon.getMetrics());
+            }
+        }
+
+        // append <압축 파일> <텍스트 파일>...: 텍스트 파일을 압축해 압축 파일 끝에 덧붙입니다.
+        if (args.length > 2 && args[0].equals("append")) {
+            for (int i = 2; i < args.length; ++i) {
+                Compressor compressor = Compressor.append(args[1], args[i]);
+                try {
+                    compressor.run();
+                } finally {
+                    compressor.close();
+                }
+            }
+            return;
+        }
+
+        // search <검색어> <압축 파일>...: 압축 파일을 복원하지 않고 검색어가 있는 줄을 찾습니다.
+        if (args.length > 2 && args[0].equals("search")) {
+            for (int i = 2; i < args.length; ++i) {
+                Searcher searcher = new Searcher(args[i]);
+                try {
+                    for (SearchHit hit : searcher.search(args[1])) {
+                        System.out.println(args[i] + ":" + hit);
+                    }
+                } finally {
+                    searcher.close();
+                }
+            }
+            return;
+        }
+
         new MainFrame();
     }
-}
\ No newline at end of file
+
+    private static void analyze(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                analyze(child);
+            }
+            return;
+        }
+
+        try {
+            CompressionEstimate estimate = Compressor.analyze(file.getPath());
+            System.out.println(file.getPath() + ": " + estimate);
+        } catch (Exception ex) {
+            System.out.println(file.getPath() + ": " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.patulus.huffmancoding.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 원본 내용의 해시를 키로 압축 결과를 디스크에 보관하는 캐시입니다.
+ * 같은 내용의 파일을 다시 압축하면 보관한 압축 파일과 통계를 그대로 돌려주므로 원본을 두 번 읽지 않아도 됩니다.
+ *
+ * 항목마다 압축 파일(키.hfm)과 통계 파일(키.properties)을 두며, 둘 다 있어야 적중으로 봅니다.
+ * 항목은 임시 파일에 다 쓴 뒤 이름을 바꾸어 넣으므로, 다른 스레드나 프로세스가 쓰다 만 항목을 읽지 않습니다.
+ * 전체 크기가 한도를 넘으면 가장 오래 사용하지 않은(수정 시각이 가장 이른) 항목부터 지웁니다.
+ */
+public class ResultCache {
+    /** 압축 파일과 통계 파일의 확장자입니다. */
+    private static final String RESULT_SUFFIX = ".hfm";
+    private static final String STATS_SUFFIX = ".properties";
+    /** 키를 계산할 때 한 번에 읽는 바이트 수입니다. */
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+    /** 형식이 바뀌면 이전 항목이 적중하지 않도록 키에 포함하는 버전입니다. */
+    private static final String KEY_VERSION = "hfm-cache-2";
+    /** 항목을 넣는 중에 쓰는 임시 파일의 확장자와, 쓰던 프로세스가 죽어 남은 것으로 보고 지우기까지의 시간(밀리초)입니다. */
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final long STALE_TMP_MILLIS = 60 * 60 * 1000;
+
+    private final Path dir;
+    private final long maxBytes;
+
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    /**
+     * @param dir 항목을 보관할 디렉터리 (없으면 만듭니다.)
+     * @param maxBytes 보관할 항목의 전체 크기 한도(바이트)
+     */
+    public ResultCache(Path dir, long maxBytes) throws IOException {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("캐시 크기는 1바이트 이상이어야 합니다.");
+        }
+
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException ex) {
+            System.err.println("캐시 디렉터리를 만들 수 없습니다: " + ex.getMessage());
+            throw ex;
+        }
+    }
+
+    /**
+     * 원본 내용과 압축 설정으로 키를 계산합니다.
+     * 설정이 다르면 같은 원본이라도 압축 결과가 다르므로 설정 문자열을 내용 앞에 함께 해시합니다.
+     * 다른 원본의 결과를 돌려주면 조용히 데이터가 바뀌므로 충돌을 무시할 수 있는 SHA-256을 사용합니다.
+     */
+    public static String keyOf(InputStream in, String options) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256을 사용할 수 없습니다.", ex);
+        }
+
+        digest.update((KEY_VERSION + ';' + options + '\n').getBytes(StandardCharsets.UTF_8));
+        byte[] buffer = new byte[HASH_BUFFER_SIZE];
+        int readBytes;
+        while ((readBytes = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, readBytes);
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 키에 해당하는 압축 결과를 주어진 스트림에 쓰고 통계를 반환합니다.
+     * 항목이 없으면 아무것도 쓰지 않고 null을 반환합니다.
+     */
+    public Properties get(String key, OutputStream out) throws IOException {
+        Path result = dir.resolve(key + RESULT_SUFFIX);
+        Path stats = dir.resolve(key + STATS_SUFFIX);
+
+        // 쓰기 전에 두 파일을 모두 열어 두므로, 그사이 항목이 지워져도 절반만 쓰지 않습니다.
+        Properties properties = new Properties();
+        InputStream resultIn;
+        try (InputStream statsIn = Files.newInputStream(stats)) {
+            properties.load(statsIn);
+            resultIn = Files.newInputStream(result);
+        } catch (NoSuchFileException ex) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        try (resultIn) {
+            resultIn.transferTo(out);
+        }
+
+        // 사용한 항목은 수정 시각을 갱신해 가장 나중에 지워지도록 합니다.
+        touch(result);
+        touch(stats);
+        hits.incrementAndGet();
+        return properties;
+    }
+
+    /** 압축 파일과 통계를 키에 해당하는 항목으로 넣고, 크기 한도를 넘으면 오래된 항목을 지웁니다. */
+    public void put(String key, Path result, Properties stats) throws IOException {
+        try {
+            // 압축 파일을 먼저 넣고 통계 파일을 나중에 넣으므로, 통계 파일이 보이면 압축 파일도 완전합니다.
+            Path resultTmp = Files.createTempFile(dir, key, TMP_SUFFIX);
+            try {
+                Files.copy(result, resultTmp, StandardCopyOption.REPLACE_EXISTING);
+                move(resultTmp, dir.resolve(key + RESULT_SUFFIX));
+            } finally {
+                Files.deleteIfExists(resultTmp);
+            }
+
+            Path statsTmp = Files.createTempFile(dir, key, TMP_SUFFIX);
+            try {
+                try (OutputStream statsOut = Files.newOutputStream(statsTmp)) {
+                    stats.store(statsOut, null);
+                }
+                move(statsTmp, dir.resolve(key + STATS_SUFFIX));
+            } finally {
+                Files.deleteIfExists(statsTmp);
+            }
+        } catch (IOException ex) {
+            System.err.println("캐시에 쓸 수 없습니다: " + ex.getMessage());
+            throw ex;
+        }
+
+        evict();
+    }
+
+    /** 임시 파일을 항목 이름으로 바꿉니다. 원자적 이동을 지원하지 않는 파일 시스템이면 덮어쓰기로 대신합니다. */
+    private static void move(Path tmp, Path target) throws IOException {
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ex) {
+            // 지워진 항목이면 갱신할 필요가 없습니다.
+        }
+    }
+
+    /**
+     * 전체 크기가 한도 이하가 될 때까지 가장 오래 사용하지 않은 항목부터 지웁니다.
+     * 항목을 넣다가 프로세스가 죽어 남은 오래된 임시 파일도 함께 지웁니다.
+     */
+    private synchronized void evict() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        long totalBytes = 0;
+
+        // 다른 스레드나 프로세스가 쓰고 있을 수 있으므로 충분히 오래된 임시 파일만 지웁니다.
+        long staleBefore = System.currentTimeMillis() - STALE_TMP_MILLIS;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + TMP_SUFFIX)) {
+            for (Path tmp : stream) {
+                try {
+                    if (Files.getLastModifiedTime(tmp).toMillis() < staleBefore) {
+                        Files.deleteIfExists(tmp);
+                    }
+                } catch (NoSuchFileException ex) {
+                    // 쓰던 스레드가 이미 이름을 바꾸었거나 지운 파일입니다.
+                }
+            }
+        } catch (DirectoryIteratorException ex) {
+            throw ex.getCause();
+        }
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + RESULT_SUFFIX)) {
+            for (Path result : stream) {
+                String name = result.getFileName().toString();
+                Path stats = dir.resolve(name.substring(0, name.length() - RESULT_SUFFIX.length()) + STATS_SUFFIX);
+                try {
+                    long bytes = Files.size(result) + (Files.exists(stats) ? Files.size(stats) : 0);
+                    entries.add(new Entry(result, stats, bytes, Files.getLastModifiedTime(result).toMillis()));
+                    totalBytes += bytes;
+                } catch (NoSuchFileException ex) {
+                    // 다른 프로세스가 이미 지운 항목입니다.
+                }
+            }
+        } catch (DirectoryIteratorException ex) {
+            throw ex.getCause();
+        }
+
+        if (totalBytes <= maxBytes) return;
+
+        entries.sort(Comparator.comparingLong(entry -> entry.lastUsed));
+        for (Entry entry : entries) {
+            if (totalBytes <= maxBytes) break;
+
+            // 통계 파일을 먼저 지워 남은 압축 파일이 적중하지 않도록 합니다.
+            Files.deleteIfExists(entry.stats);
+            Files.deleteIfExists(entry.result);
+            totalBytes -= entry.bytes;
+        }
+    }
+
+    /** 적중한 횟수입니다. */
+    public long getHits() { return hits.get(); }
+
+    /** 적중하지 않은 횟수입니다. */
+    public long getMisses() { return misses.get(); }
+
+    /** 보관한 항목 하나입니다. */
+    private static class Entry {
+        final Path result;
+        final Path stats;
+        final long bytes;
+        final long lastUsed;
+
+        Entry(Path result, Path stats, long bytes, long lastUsed) {
+            this.result = result;
+            this.stats = stats;
+            this.bytes = bytes;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
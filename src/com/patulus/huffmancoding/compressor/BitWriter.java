@@ -0,0 +1,49 @@
+package com.patulus.huffmancoding.compressor;
+
+import java.util.Arrays;
+
+/** 허프만 코드를 비트 단위로 모으는 메모리 버퍼입니다. */
+class BitWriter {
+    private byte[] bytes;
+    private int size;
+
+    private int buffer;
+    private int bufferIdx;
+
+    BitWriter(int initialCapacity) {
+        this.bytes = new byte[Math.max(16, initialCapacity)];
+        this.size = 0;
+    }
+
+    /** '0'과 '1'로 이루어진 허프만 코드를 씁니다. */
+    void writeCode(String code) {
+        for (int codeIdx = 0; codeIdx < code.length(); ++codeIdx) {
+            buffer = (buffer << 1) | (code.charAt(codeIdx) - '0');
+            if (++bufferIdx == 8) {
+                append(buffer);
+                buffer = 0;
+                bufferIdx = 0;
+            }
+        }
+    }
+
+    /** 남은 비트를 0으로 채워 바이트 경계를 맞춥니다. */
+    void pad() {
+        if (bufferIdx > 0) {
+            append(buffer << (8 - bufferIdx));
+            buffer = 0;
+            bufferIdx = 0;
+        }
+    }
+
+    private void append(int b) {
+        if (size == bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+        bytes[size++] = (byte) b;
+    }
+
+    byte[] getBytes() { return this.bytes; }
+
+    int size() { return this.size; }
+}
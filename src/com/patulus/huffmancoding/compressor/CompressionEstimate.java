@@ -0,0 +1,97 @@
+package com.patulus.huffmancoding.compressor;
+
+/**
+ * 출력하기 전에 문자 출현 횟수와 코드 길이로 계산한 압축 결과의 크기입니다.
+ * 본문을 하나의 비트 스트림으로 쓰면 정확한 값이며, 여러 스트림으로 나누면 스트림별 바이트 경계 때문에 상한입니다.
+ */
+public class CompressionEstimate {
+    /** 헤더 고정 부분(식별자, 문자 수, 바이트 수, 구분 바이트)을 합친 저장 블록('R')의 크기입니다. */
+    public static final int STORED_HEADER_BYTES = 10;
+
+    /**
+     * 허프만 블록의 헤더 바이트 수를 계산합니다. Compressor와 CodecEngine이 같은 식으로 결과의 크기를 미리 계산합니다.
+     * 식별자, (플래그), 문자 수, 구분 바이트 3개, 트리 구조 비트, 말단 문자, (스트림 개수와 스트림별 바이트 수)
+     */
+    public static long huffmanHeaderBytes(long nodes, long leafBytes, int streams) {
+        return huffmanHeaderBytes(nodes, leafBytes, streams, -1);
+    }
+
+    /** 동기점 색인을 함께 쓰는 허프만 블록의 헤더 바이트 수를 계산합니다. syncPoints가 음수이면 색인을 쓰지 않습니다. */
+    public static long huffmanHeaderBytes(long nodes, long leafBytes, int streams, int syncPoints) {
+        boolean extended = streams > 1 || syncPoints >= 0;
+        long headerBytes = 1 + (extended ? 1 : 0) + 4 + 3 + (nodes + 7) / 8 + leafBytes;
+        if (streams > 1) {
+            headerBytes += 1 + 4L * streams;
+        }
+        if (syncPoints >= 0) {
+            headerBytes += syncIndexBytes(syncPoints);
+        }
+        return headerBytes;
+    }
+
+    /** 동기점 색인의 바이트 수입니다. 본문 바이트 수(4), 동기점 개수(4), 동기점마다 비트 위치(8)와 문자 서명(8) */
+    public static long syncIndexBytes(int syncPoints) {
+        return 8 + 16L * syncPoints;
+    }
+
+    private final long srcBytes;
+    private final int totalChars;
+    private final int usedChars;
+    private final long headerBytes;
+    private final long bodyBits;
+    private final long huffmanBytes;
+    private final boolean exact;
+
+    CompressionEstimate(long srcBytes, int totalChars, int usedChars, long headerBytes, long bodyBits, long huffmanBytes, boolean exact) {
+        this.srcBytes = srcBytes;
+        this.totalChars = totalChars;
+        this.usedChars = usedChars;
+        this.headerBytes = headerBytes;
+        this.bodyBits = bodyBits;
+        this.huffmanBytes = huffmanBytes;
+        this.exact = exact;
+    }
+
+    public long getSrcBytes() { return this.srcBytes; }
+
+    public int getTotalChars() { return this.totalChars; }
+
+    public int getUsedChars() { return this.usedChars; }
+
+    /** 허프만 헤더(트리와 말단 문자)의 바이트 수입니다. */
+    public long getHeaderBytes() { return this.headerBytes; }
+
+    /** 허프만 본문의 비트 수입니다. */
+    public long getBodyBits() { return this.bodyBits; }
+
+    /** 허프만 블록 전체의 바이트 수입니다. */
+    public long getHuffmanBytes() { return this.huffmanBytes; }
+
+    /** 원본을 그대로 저장하는 블록의 바이트 수입니다. */
+    public long getStoredBytes() { return STORED_HEADER_BYTES + srcBytes; }
+
+    /** 허프만 부호화가 이득이 없어 원본을 그대로 저장하는지 여부입니다. 바이트 수는 4바이트에 기록하므로 4GB 미만이어야 합니다. */
+    public boolean isStored() { return huffmanBytes >= getStoredBytes() && srcBytes <= 0xFFFFFFFFL; }
+
+    /** 실제로 쓰게 될 바이트 수입니다. */
+    public long getOutputBytes() { return isStored() ? getStoredBytes() : huffmanBytes; }
+
+    /** 값이 정확한지, 상한인지 여부입니다. */
+    public boolean isExact() { return this.exact; }
+
+    /** 압축률(%)입니다. */
+    public double getRatio() {
+        return (srcBytes == 0) ? 0 : (1 - (double) getOutputBytes() / srcBytes) * 100;
+    }
+
+    /** 문자당 평균 비트 수입니다. */
+    public double getBitsPerChar() {
+        return (totalChars == 0) ? 0 : (double) bodyBits / totalChars;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%dBytes -> %s%dBytes (%s, 압축률 %f%%, 문자당 %f비트)",
+                srcBytes, exact ? "" : "최대 ", getOutputBytes(), isStored() ? "저장" : "허프만", getRatio(), getBitsPerChar());
+    }
+}
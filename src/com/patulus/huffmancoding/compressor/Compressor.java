@@ -1,7 +1,21 @@
 package com.patulus.huffmancoding.compressor;
 
+import com.patulus.huffmancoding.cache.ResultCache;
+import com.patulus.huffmancoding.decompressor.BlockHeader;
+import com.patulus.huffmancoding.decompressor.Decompressor;
+import com.patulus.huffmancoding.general.ByteBufferInputStream;
+import com.patulus.huffmancoding.general.ByteBufferOutputStream;
+import com.patulus.huffmancoding.general.CountingInputStream;
+import com.patulus.huffmancoding.general.CountingOutputStream;
+import com.patulus.huffmancoding.general.HuffmanFormat;
 import com.patulus.huffmancoding.general.Node;
+import com.patulus.huffmancoding.general.Utf8;
+import com.patulus.huffmancoding.job.CodecException;
+import com.patulus.huffmancoding.job.JobControl;
+import com.patulus.huffmancoding.job.Phase;
 import com.patulus.huffmancoding.minheap.MinHeap;
+import com.patulus.huffmancoding.pipeline.AsyncBlockInputStream;
+import com.patulus.huffmancoding.pipeline.AsyncBlockOutputStream;
 
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
@@ -10,32 +24,94 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
 
 public class Compressor {
     /** 헤더 정보 구분을 위한 의미 없는 바이트를 추가합니다. */
-    private static final int MEANINGLESS_CHARACTER = 255;
+    private static final int MEANINGLESS_CHARACTER = HuffmanFormat.SEPARATOR;
+    /** 표본 추출 시 한 번에 읽는 구간의 바이트 수입니다. */
+    private static final int SAMPLE_BLOCK_SIZE = 64 * 1024;
 
-    /** 읽을 파일과 쓸 파일을 지정합니다. */
+    /** 읽을 파일과 쓸 파일을 지정합니다. 메모리의 데이터를 압축하면 null입니다. */
     final File src;
     final File out;
+    /** 메모리에서 압축할 데이터입니다. position부터 limit까지를 압축하며, 버퍼의 position은 바꾸지 않습니다. 파일을 압축하면 null입니다. */
+    private final ByteBuffer data;
+    /** 로그에 표시할 이름입니다. */
+    private final String name;
 
     /** 압축 전 파일의 문자 개수입니다. */
     int totalChars;
     /** 압축에 걸린 시간입니다. */
     double elapsedTime;
+    /** 본문을 나누어 쓸 비트 스트림의 개수입니다. 1이면 기본 형식('H')으로 씁니다. */
+    private int streams;
+    /** 본문을 부호화할 스레드 수입니다. 1이면 한 스레드가 차례로 부호화합니다. */
+    private int parallelism;
+
+    /** 표본으로 읽을 파일의 비율입니다. 0이면 파일 전체를 읽어 문자 출현 횟수를 셉니다. */
+    private double sampleRatio;
+    /** 표본 구간을 무작위로 고를지 여부입니다. false이면 일정한 간격으로 고릅니다. */
+    private boolean sampleRandom;
+    /** 표를 만들 히스토그램입니다. null이면 이 파일의 문자 출현 횟수로 표를 만듭니다. */
+    private FrequencyHistogram histogram;
+    /** 표에 없는 문자를 탈출 코드로 쓰는지 여부입니다. 표본이나 히스토그램으로 표를 만들면 true입니다. */
+    private boolean escape;
+    /** 출력 전에 계산한 압축 결과의 크기입니다. 표본이나 히스토그램으로 표를 만들면 null입니다. */
+    CompressionEstimate estimate;
+    /** 허프만 부호화 대신 원본을 그대로 저장했는지 여부입니다. */
+    boolean stored;
+    /** 덧붙이기를 할 때 기존 파일의 첫 번째 블록의 헤더입니다. 새 파일을 만들면 null입니다. */
+    private BlockHeader appendTarget;
+    /** 이번에 쓰는 블록이 시작하는 파일 위치입니다. */
+    private long blockOffset;
+    /** 압축을 끝까지 마쳤는지 여부입니다. 덧붙이기를 마치지 못하고 닫으면 쓰다 만 블록을 지웁니다. */
+    private boolean completed;
+    /** 첫 번째 블록의 표를 재사용했는지 여부입니다. */
+    boolean reused;
+    /** 재사용할 표의 허프만 코드와 탈출 코드 사용 여부입니다. */
+    private Map<Character, String> reuseCodes;
+    private boolean reuseEscape;
+    /** 본문의 동기점 색인입니다. 색인을 쓰지 않는 블록이면 null입니다. */
+    private SyncIndex syncIndex;
+    /** 탈출 코드로 쓴 문자의 수입니다. */
+    int escapedChars;
+    /** 표본 표로 쓴 본문의 비트 수가 정확한 표로 쓸 때보다 늘어난 비율입니다. */
+    double sampleLoss;
+
+    /** 진행 상황 전달, 취소, 제한 시간을 관리합니다. */
+    private JobControl control;
+    /** 같은 내용의 압축 결과를 보관하는 캐시와, 이번 원본의 키입니다. 캐시를 사용하지 않으면 null입니다. */
+    private ResultCache cache;
+    private String cacheKey;
+    /** 키를 계산하기 전 원본의 크기와 수정 시각입니다. 압축하는 사이 원본이 바뀌었으면 결과를 캐시에 넣지 않습니다. */
+    private long cacheSrcBytes;
+    private long cacheSrcModified;
+    /** 두 읽기 클래스가 읽은 바이트 수를 셉니다. */
+    private CountingInputStream preprocessCounter;
+    private CountingInputStream readerCounter;
 
     /** 파일 압축 전 문자 수 및 문자별 출현 횟수를 세는 파일 읽기 클래스입니다. */
     private BufferedReader preprocessReader;
     /** 파일 압축을 위한 파일 읽기 클래스입니다. */
     private BufferedReader reader;
     /** 파일 압축을 위한 파일 쓰기 클래스입니다. */
-    private BufferedOutputStream writer;
+    private OutputStream writer;
+    /** 메모리의 데이터를 압축할 때 쓴 바이트 수를 셉니다. */
+    private CountingOutputStream outCounter;
     /** (GUI) 압축된 파일의 내용을 반환합니다. */
     private StringBuilder compressResult;
 
@@ -43,42 +119,178 @@ public class Compressor {
     private final MinHeap minHeap;
     /** 문자 출현 횟수를 저장합니다. */
     final Map<Integer, Integer> frequency;
+    /** 허프만 트리의 루트 노드입니다. 아직 트리를 구성하지 않았으면 null입니다. */
+    private Node root;
     /** 허프만 코드를 저장합니다. */
     final Map<Character, String> huffmanCodes;
 
     public Compressor(String path) throws FileNotFoundException {
-        this.src = new File(path);
-        this.out = new File(src.getPath() + ".hfm");
+        this(new File(path), new File(path + ".hfm"), null, new File(path).getName());
+
+        init();
+    }
+
+    /** 메모리의 데이터를 압축해 주어진 스트림에 씁니다. 파일 시스템을 사용하지 않습니다. */
+    public Compressor(byte[] data, OutputStream out) {
+        this(ByteBuffer.wrap(data), out);
+    }
+
+    /** 바이트 버퍼(힙 또는 다이렉트)의 남은 데이터를 압축해 주어진 스트림에 씁니다. 데이터를 복사하지 않습니다. */
+    public Compressor(ByteBuffer data, OutputStream out) {
+        this(null, null, data.slice(), "<memory>");
+
+        this.preprocessCounter = new CountingInputStream(new ByteBufferInputStream(this.data.duplicate()));
+        this.readerCounter = new CountingInputStream(new ByteBufferInputStream(this.data.duplicate()));
+        this.preprocessReader = new BufferedReader(new InputStreamReader(preprocessCounter, StandardCharsets.UTF_8));
+        this.reader = new BufferedReader(new InputStreamReader(readerCounter, StandardCharsets.UTF_8));
+        this.outCounter = new CountingOutputStream(new BufferedOutputStream(out));
+        this.writer = outCounter;
+    }
+
+    private Compressor(File src, File out, ByteBuffer data, String name) {
+        this.src = src;
+        this.out = out;
+        this.data = data;
+        this.name = name;
 
         this.totalChars = 0;
+        this.streams = 1;
+        this.parallelism = 1;
+        this.control = new JobControl();
 
         this.compressResult = new StringBuilder();
 
         this.minHeap = new MinHeap();
         this.frequency = new HashMap<>();
         this.huffmanCodes = new HashMap<>();
-
-        init();
     }
 
-    /** 스트림을 엽니다. */
+    /**
+     * 스트림을 엽니다.
+     * 읽기와 쓰기는 각각 별도의 스레드가 링 버퍼를 통해 수행하므로, 부호화와 디스크 입출력이 겹쳐 진행됩니다.
+     * 원본을 읽는 스트림은 필요할 때 엽니다. 문자를 셀 때 읽는 스트림은 파일 전체를 셀 때만(openPreprocessReader),
+     * 본문을 쓸 때 읽는 스트림은 문자를 다 센 뒤에(openReader) 열어, 두 읽기 스레드가 동시에 파일을 미리 읽지 않도록 합니다.
+     */
     private void init() throws FileNotFoundException {
         try {
-            preprocessReader = new BufferedReader(new InputStreamReader(new FileInputStream(src), StandardCharsets.UTF_8));
-            reader = new BufferedReader(new InputStreamReader(new FileInputStream(src), StandardCharsets.UTF_8));
-            writer = new BufferedOutputStream(new FileOutputStream(out));
+            writer = new AsyncBlockOutputStream(new FileOutputStream(out, appendTarget != null));
         } catch (FileNotFoundException ex) {
             System.err.println("파일을 찾을 수 없습니다: " + ex.getMessage());
             throw ex;
         }
     }
 
-    /** 스트림을 닫습니다. */
+    /**
+     * 본문을 나누어 쓸 비트 스트림의 개수를 지정합니다.
+     * 2 이상이면 i번째 문자를 (i % streams)번째 스트림에 쓰며, 복원할 때 스트림들을 한 스레드에서 번갈아 복호화합니다.
+     */
+    public void setStreams(int streams) {
+        if (streams < 1 || streams > HuffmanFormat.MAX_STREAMS) {
+            throw new IllegalArgumentException("스트림 개수는 1 이상 " + HuffmanFormat.MAX_STREAMS + " 이하여야 합니다.");
+        }
+        this.streams = streams;
+    }
+
+    /**
+     * 본문을 부호화할 스레드 수를 지정합니다.
+     * 2 이상이면 문자를 조각으로 나누어 여러 스레드가 부호화하지만, 결과는 한 스레드로 쓴 본문과 같은 하나의 비트 스트림입니다.
+     * 본문을 여러 스트림으로 나누어 쓰면(setStreams) 사용하지 않습니다.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("스레드 수는 1 이상이어야 합니다.");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * 파일 전체 대신 일부 구간만 읽어 문자 출현 횟수를 추정하도록 지정합니다.
+     * 파일을 한 번만 읽으므로 큰 파일의 압축이 빨라지며, 표본에 없던 문자는 탈출 코드와 문자 값으로 씁니다.
+     * 문자 수는 본문을 쓴 뒤 헤더에 다시 기록하므로 파일로 압축할 때만 사용할 수 있습니다.
+     *
+     * @param ratio 표본으로 읽을 파일의 비율 (0 초과 1 미만)
+     * @param random true이면 구간을 무작위로, false이면 일정한 간격으로 고릅니다.
+     */
+    public void setSampling(double ratio, boolean random) {
+        if (out == null) {
+            throw new IllegalStateException("파일로 압축할 때만 표본 추출을 사용할 수 있습니다.");
+        }
+        if (!(ratio > 0 && ratio < 1)) {
+            throw new IllegalArgumentException("표본 비율은 0 초과 1 미만이어야 합니다.");
+        }
+        this.sampleRatio = ratio;
+        this.sampleRandom = random;
+    }
+
+    /**
+     * 이 파일 대신 주어진 히스토그램으로 표를 만들도록 지정합니다.
+     * 여러 노드가 각자 센 히스토그램을 합쳐 넘기면, 모든 노드가 전체 데이터에 최적인 같은 표로 압축합니다.
+     * 문자를 세는 스트림(openPreprocessReader)을 열지 않으므로 파일은 본문을 쓸 때 한 번만 읽으며, 히스토그램에 없는 문자는 표본 추출과 같이 탈출 코드로 씁니다.
+     * 문자 수는 본문을 쓴 뒤 헤더에 다시 기록하므로 파일로 압축할 때만 사용할 수 있습니다.
+     */
+    public void setHistogram(FrequencyHistogram histogram) {
+        if (out == null) {
+            throw new IllegalStateException("파일로 압축할 때만 히스토그램을 사용할 수 있습니다.");
+        }
+        if (histogram.getTotalChars() == 0) {
+            throw new IllegalArgumentException("빈 히스토그램으로는 표를 만들 수 없습니다.");
+        }
+        this.histogram = histogram;
+    }
+
+    /**
+     * 출력하기 전에 압축 결과의 크기(바이트)를 계산합니다.
+     * 본문을 하나의 비트 스트림으로 쓰면 정확한 값이고, 여러 스트림으로 나누어 쓰면 상한입니다.
+     * 이때 구성한 트리를 run()이 그대로 사용하므로 원본을 다시 세지 않습니다.
+     */
+    public long getCompressedLength() throws IOException {
+        if (sampleRatio > 0 || histogram != null) {
+            throw new IllegalStateException("표본 추출이나 히스토그램을 사용하면 압축 결과의 크기를 미리 계산할 수 없습니다.");
+        }
+
+        if (isEmptyData()) {
+            estimate = emptyEstimate();
+        } else if (root == null) {
+            root = buildTree();
+            estimate = estimate(root);
+        }
+        long reuseBytes = reuseBytes();
+        return (reuseBytes != -1) ? Math.min(reuseBytes, estimate.getOutputBytes()) : estimate.getOutputBytes();
+    }
+
+    /**
+     * 압축 결과를 보관할 캐시를 지정합니다.
+     * 같은 설정으로 같은 내용을 압축한 적이 있으면 원본을 다시 부호화하지 않고 보관한 결과와 통계를 그대로 씁니다.
+     * 덧붙이기는 기존 파일에 따라 결과가 달라지므로 캐시를 사용하지 않습니다.
+     */
+    public void setCache(ResultCache cache) {
+        if (out == null) {
+            throw new IllegalStateException("파일로 압축할 때만 캐시를 사용할 수 있습니다.");
+        }
+        this.cache = cache;
+    }
+
+    /** 진행 상황 전달, 취소, 제한 시간을 관리할 객체를 지정합니다. */
+    public void setJobControl(JobControl control) {
+        this.control = control;
+    }
+
+    /**
+     * 스트림을 닫습니다.
+     * 덧붙이기를 끝까지 마치지 못했으면 압축 파일을 덧붙이기 전의 길이로 되돌려, 쓰다 만 블록이 기존 블록을 망가뜨리지 않도록 합니다.
+     */
     public void close() throws IOException {
         try {
             if (writer != null) writer.close();
             if (reader != null) reader.close();
             if (preprocessReader != null) preprocessReader.close();
+
+            if (appendTarget != null && !completed && out.length() > blockOffset) {
+                try (RandomAccessFile raf = new RandomAccessFile(out, "rw")) {
+                    raf.setLength(blockOffset);
+                }
+                System.err.println(out.getName() + "에 덧붙이지 못해 덧붙이기 전의 상태로 되돌렸습니다.");
+            }
         } catch (IOException ex) {
             System.err.println("해제 오류가 발생했습니다: " + ex.getMessage());
             throw ex;
@@ -89,43 +301,337 @@ public class Compressor {
     public void run() throws IOException {
         try {
             long startTime = System.nanoTime();
+            control.start();
 
-            // 문자별 출현 횟수를 세 허프만 트리를 구성합니다.
-            makeHuffmanTree(calculateFrequency());
-            // 노드 개수가 3 미만이면 부모 노드를 강제로 생성합니다.
-            if (frequency.size() < 3) {
-                Node left = minHeap.delete();
-                Node right = minHeap.delete();
-                if (right == null) {
-                    right = new Node(MEANINGLESS_CHARACTER, 0, null, null);
-                }
+            // 히스토그램이 주어졌거나 표본만으로 충분히 큰 파일이면 파일 전체를 세지 않고 표를 만듭니다.
+            escape = histogram != null || (sampleRatio > 0 && src.length() * sampleRatio < src.length() - SAMPLE_BLOCK_SIZE);
+
+            // 같은 내용을 압축한 결과가 캐시에 있으면 그대로 씁니다.
+            if (restoreFromCache()) {
+                control.checkpoint(Phase.FINISHED, getSrcVolume(), totalChars);
+                completed = true;
+
+                elapsedTime = ((double) System.nanoTime() - startTime) / 1000000;
+                System.out.println(name + "의 압축 시간(캐시): " + elapsedTime);
+                return;
+            }
 
-                minHeap.insert(new Node(MEANINGLESS_CHARACTER, left.getFrequency() + right.getFrequency(), left, right));
+            if (isEmptyData()) {
+                estimate = emptyEstimate();
+            } else if (root == null) {
+                root = buildTree();
             }
-            Node root = minHeap.delete();
+            int[] exactCounts = escape ? new int[Character.MAX_VALUE + 1] : null;
 
-            // 허프만 코드를 생성합니다.
-            makeHuffmanCode(root, "");
+            // 덧붙이기이면 첫 번째 블록의 표를 재사용하는 편이 더 작은지 확인합니다.
+            if (!escape && estimate == null) {
+                estimate = estimate(root);
+            }
+            long reuseBytes = (estimate != null) ? reuseBytes() : -1;
 
-            // 허프만 트리 정보를 파일에 씁니다. (0이면 내부 노드, 1이면 말단 노드)
-            compressResult.append("[헤더]\n");
-            writeHeader(root);
-            // 문자를 읽고, 허프만 코드로 변환해 파일에 씁니다.
-            compressResult.append("[본문]\n");
-            writeBody();
+            if (reuseBytes != -1 && reuseBytes <= estimate.getOutputBytes()) {
+                reused = true;
+                compressResult.append("[표 재사용]\n");
+                writeReuseHeader();
+                compressResult.append("[본문]\n");
+                writeBody(null);
+            } else if (estimate != null && estimate.isStored()) {
+                // 허프만 부호화가 이득이 없으면 원본을 그대로 저장합니다.
+                stored = true;
+                compressResult.append("[저장]\n");
+                writeStored();
+            } else {
+                // 허프만 트리 정보를 파일에 씁니다. (0이면 내부 노드, 1이면 말단 노드)
+                compressResult.append("[헤더]\n");
+                if (writesSyncIndex()) {
+                    syncIndex = new SyncIndex(totalChars);
+                }
+                writeHeader(root);
+                // 문자를 읽고, 허프만 코드로 변환해 파일에 씁니다.
+                compressResult.append("[본문]\n");
+                if (streams > 1) {
+                    writeInterleavedBody(exactCounts);
+                } else {
+                    writeBody(exactCounts);
+                }
+            }
 
             writer.flush();
 
+            if (syncIndex != null) {
+                patchSyncIndex();
+            }
+
+            // 표본이나 히스토그램으로 압축했다면 본문을 쓰며 센 문자 수를 헤더에 기록하고, 이 파일에 최적인 표와 비교한 손실을 계산합니다.
+            if (escape) {
+                patchTotalChars();
+                // 빈 파일이면 비교할 본문이 없으므로 손실은 0입니다.
+                long optimal = optimalBits(exactCounts);
+                sampleLoss = (optimal == 0) ? 0 : (double) bodyBits(exactCounts) / optimal - 1;
+                System.out.printf("%s의 %s 손실: %f%%, 탈출 문자 수: %d%n", name, (histogram != null) ? "공유 표" : "표본 표", sampleLoss * 100, escapedChars);
+            }
+
+            if (cacheKey != null) {
+                storeToCache();
+            }
+
+            control.checkpoint(Phase.FINISHED, getSrcVolume(), totalChars);
+            completed = true;
+
             long endTime = System.nanoTime();
 
             elapsedTime = ((double) endTime - startTime) / 1000000;
-            System.out.println(src.getName() + "의 압축 시간: " + elapsedTime);
+            System.out.println(name + "의 압축 시간: " + elapsedTime);
         } catch (IOException ex) {
             System.err.println("압축 오류가 발생했습니다: " + ex.getMessage());
             throw ex;
         }
     }
 
+    /** 메모리의 데이터를 압축한 결과를 반환합니다. 결과 배열은 미리 계산한 크기로 한 번만 할당합니다. */
+    public static byte[] compress(byte[] data) throws IOException {
+        return compress(ByteBuffer.wrap(data));
+    }
+
+    /** 문자열을 UTF-8로 부호화해 압축한 결과를 반환합니다. */
+    public static byte[] compress(CharSequence text) throws IOException {
+        return compress(StandardCharsets.UTF_8.encode(CharBuffer.wrap(text)));
+    }
+
+    /** 바이트 버퍼의 남은 데이터를 압축한 결과를 반환합니다. 버퍼의 position은 limit까지 이동합니다. */
+    public static byte[] compress(ByteBuffer src) throws IOException {
+        Compressor compressor = new Compressor(src, OutputStream.nullOutputStream());
+        byte[] result = new byte[Math.toIntExact(compressor.getCompressedLength())];
+
+        int written = compressor.runInto(ByteBuffer.wrap(result));
+        src.position(src.limit());
+
+        return (written == result.length) ? result : Arrays.copyOf(result, written);
+    }
+
+    /**
+     * 바이트 버퍼의 남은 데이터를 압축해 출력 버퍼에 쓰고, 쓴 바이트 수를 반환합니다.
+     * 압축 결과의 크기를 먼저 계산하므로, 출력 버퍼의 공간이 부족하면 아무것도 쓰지 않고 예외를 던집니다.
+     * 두 버퍼의 position은 각각 읽고 쓴 만큼 이동합니다.
+     */
+    public static int compress(ByteBuffer src, ByteBuffer dst) throws IOException {
+        Compressor compressor = new Compressor(src, OutputStream.nullOutputStream());
+        long length = compressor.getCompressedLength();
+        if (length > dst.remaining()) {
+            compressor.close();
+            throw new CodecException("출력 버퍼의 공간이 부족합니다: " + length + "바이트가 필요합니다.");
+        }
+
+        int written = compressor.runInto(dst);
+        src.position(src.limit());
+
+        return written;
+    }
+
+    /** 압축 결과를 출력 버퍼에 쓰고 스트림을 닫습니다. 쓴 바이트 수를 반환합니다. */
+    private int runInto(ByteBuffer dst) throws IOException {
+        outCounter = new CountingOutputStream(new ByteBufferOutputStream(dst));
+        writer = outCounter;
+        try {
+            run();
+        } finally {
+            close();
+        }
+        return (int) outCounter.getCount();
+    }
+
+    /**
+     * 파일을 압축해 기존 압축 파일 끝에 새 블록으로 덧붙이는 압축기를 만듭니다.
+     * 기존 본문은 읽지 않으므로 비용은 새 데이터의 크기에만 비례합니다.
+     * 첫 번째 블록의 표로 부호화하는 편이 더 작으면 표를 재사용하는 블록('T')을, 아니면 새 표를 담은 블록을 씁니다.
+     */
+    public static Compressor append(String hfmPath, String srcPath) throws IOException {
+        BlockHeader target = Decompressor.readFirstHeader(hfmPath);
+
+        File src = new File(srcPath);
+        File out = new File(hfmPath);
+        Compressor compressor = new Compressor(src, out, null, src.getName());
+        compressor.appendTarget = target;
+        compressor.blockOffset = out.length();
+        compressor.init();
+
+        return compressor;
+    }
+
+    /**
+     * 출력 없이 파일을 분석해 압축 결과의 크기를 계산합니다.
+     * 문자 출현 횟수만 세므로 압축보다 빠르며, 압축 파일을 만들지 않습니다.
+     */
+    public static CompressionEstimate analyze(String path) throws IOException {
+        File src = new File(path);
+        Compressor compressor = new Compressor(src, null, null, src.getName());
+
+        try {
+            return compressor.estimate(compressor.buildTree());
+        } finally {
+            compressor.close();
+        }
+    }
+
+    /** 문자별 출현 횟수를 세 허프만 트리를 구성하고, 허프만 코드를 생성합니다. */
+    private Node buildTree() throws IOException {
+        // 문자별 출현 횟수를 세 허프만 트리를 구성합니다.
+        if (histogram != null) {
+            makeHuffmanTree(histogramFrequency());
+        } else {
+            makeHuffmanTree(escape ? sampleFrequency() : calculateFrequency());
+        }
+        // 노드 개수가 3 미만이면 부모 노드를 강제로 생성합니다.
+        if (frequency.size() < 3) {
+            Node left = minHeap.delete();
+            Node right = minHeap.delete();
+            if (right == null) {
+                right = new Node(MEANINGLESS_CHARACTER, 0, null, null);
+            }
+
+            minHeap.insert(new Node(MEANINGLESS_CHARACTER, left.getFrequency() + right.getFrequency(), left, right));
+        }
+        Node root = minHeap.delete();
+
+        // 허프만 코드를 생성합니다.
+        makeHuffmanCode(root, "", huffmanCodes);
+
+        return root;
+    }
+
+    /** 메모리의 데이터가 비어 있는지 여부입니다. 빈 메시지도 압축하고 복원할 수 있도록 트리 없이 빈 저장 블록('R')을 씁니다. */
+    private boolean isEmptyData() { return data != null && !data.hasRemaining(); }
+
+    /** 문자가 없는 저장 블록('R')의 크기입니다. */
+    private CompressionEstimate emptyEstimate() {
+        return new CompressionEstimate(0, 0, 0, 0, 0, CompressionEstimate.STORED_HEADER_BYTES, true);
+    }
+
+    /**
+     * 본문 앞에 동기점 색인을 쓰는지 여부입니다. 파일을 정확한 표로 하나의 비트 스트림에 압축할 때만 씁니다.
+     * 색인이 있으면 Searcher가 검색어가 없는 블록의 본문을 읽지 않고 넘기고, 검색어가 있을 수 있는 구간 근처에서만 복호화합니다.
+     * 탈출 코드를 쓰는 블록은 어떤 문자든 있을 수 있어 건너뛸 수 없고, 메모리의 메시지는 CodecEngine과 같은 기본 블록('H')으로 씁니다.
+     */
+    private boolean writesSyncIndex() { return data == null && streams == 1 && !escape; }
+
+    /** 문자 출현 횟수와 코드 길이로 압축 결과의 크기를 계산합니다. */
+    private CompressionEstimate estimate(Node root) {
+        // [0]은 노드 수, [1]은 말단 문자의 UTF-8 바이트 수입니다.
+        long[] treeInfo = {0, 0};
+        measureTree(root, treeInfo);
+
+        int syncPoints = writesSyncIndex() ? HuffmanFormat.syncPoints(totalChars) : -1;
+        long headerBytes = CompressionEstimate.huffmanHeaderBytes(treeInfo[0], treeInfo[1], streams, syncPoints);
+
+        long bodyBits = 0;
+        for (Map.Entry<Integer, Integer> entry : frequency.entrySet()) {
+            bodyBits += (long) entry.getValue() * huffmanCodes.get((char) (int) entry.getKey()).length();
+        }
+        // 스트림을 나누면 스트림마다 최대 1바이트의 채움 비트가 생깁니다.
+        long bodyBytes = (bodyBits + 7) / 8 + ((streams > 1) ? streams - 1 : 0);
+
+        return new CompressionEstimate(getSrcVolume(), totalChars, frequency.size(), headerBytes, bodyBits,
+                headerBytes + bodyBytes, streams == 1);
+    }
+
+    /** 트리의 노드 수와 말단 문자의 UTF-8 바이트 수를 셉니다. */
+    private void measureTree(Node node, long[] treeInfo) {
+        if (node != null) {
+            ++treeInfo[0];
+            if (node.isLeaf()) {
+                treeInfo[1] += Utf8.length((char) node.getCharacter());
+            }
+            measureTree(node.getLeft(), treeInfo);
+            measureTree(node.getRight(), treeInfo);
+        }
+    }
+
+    /**
+     * 첫 번째 블록의 표를 재사용하는 블록('T')의 바이트 수를 계산합니다.
+     * 표를 재사용할 수 없으면(표에 없는 문자가 있고 탈출 코드도 없으면) -1을 반환합니다.
+     */
+    private long reuseBytes() {
+        if (appendTarget == null || !appendTarget.hasTable() || streams > 1) {
+            return -1;
+        }
+
+        Map<Character, String> reuseCodes = new HashMap<>();
+        makeHuffmanCode(appendTarget.getRoot(), "", reuseCodes);
+        boolean reuseEscape = (appendTarget.getFlags() & HuffmanFormat.FLAG_ESCAPE) != 0;
+
+        long bits = 0;
+        for (Map.Entry<Integer, Integer> entry : frequency.entrySet()) {
+            char ch = (char) (int) entry.getKey();
+            String huffmanCode = (reuseEscape && ch == HuffmanFormat.ESCAPE_CHARACTER) ? null : reuseCodes.get(ch);
+
+            if (huffmanCode != null) {
+                bits += (long) entry.getValue() * huffmanCode.length();
+            } else if (reuseEscape) {
+                bits += (long) entry.getValue() * (reuseCodes.get(HuffmanFormat.ESCAPE_CHARACTER).length() + HuffmanFormat.ESCAPE_BITS);
+            } else {
+                return -1;
+            }
+        }
+
+        // 표를 재사용하면 이 코드로 본문을 씁니다.
+        this.reuseCodes = reuseCodes;
+        this.reuseEscape = reuseEscape;
+        // 식별자, 문자 수, 구분 바이트
+        return 1 + 4 + 1 + (bits + 7) / 8;
+    }
+
+    /** 첫 번째 블록의 표를 재사용하는 블록('T')의 헤더를 쓰고, 본문을 쓸 코드를 재사용할 표로 바꿉니다. */
+    private void writeReuseHeader() throws IOException {
+        writer.write(HuffmanFormat.REUSE);
+        for (int i = 4; i > 0; --i) {
+            writer.write((totalChars >> (8 * (i - 1))) & 0xFF);
+        }
+        writer.write(MEANINGLESS_CHARACTER);
+        compressResult.append((char) HuffmanFormat.REUSE).append('\n').append(totalChars).append("\n\n");
+
+        huffmanCodes.clear();
+        huffmanCodes.putAll(reuseCodes);
+        escape = reuseEscape;
+    }
+
+    /** 원본을 그대로 저장하는 블록('R')을 씁니다. */
+    private void writeStored() throws IOException {
+        long srcBytes = getSrcVolume();
+
+        writer.write(HuffmanFormat.STORED);
+        for (int i = 4; i > 0; --i) {
+            writer.write((totalChars >> (8 * (i - 1))) & 0xFF);
+        }
+        for (int i = 4; i > 0; --i) {
+            writer.write((int) (srcBytes >> (8 * (i - 1))) & 0xFF);
+        }
+        writer.write(MEANINGLESS_CHARACTER);
+        compressResult.append((char) HuffmanFormat.STORED).append('\n').append(totalChars).append('\n').append(srcBytes).append("\n\n");
+
+        if (data != null) {
+            if (data.hasArray()) {
+                writer.write(data.array(), data.arrayOffset(), data.remaining());
+            } else {
+                new ByteBufferInputStream(data.duplicate()).transferTo(writer);
+            }
+            return;
+        }
+
+        try (FileInputStream in = new FileInputStream(src)) {
+            byte[] buffer = new byte[64 * 1024];
+            long copied = 0;
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                writer.write(buffer, 0, n);
+                copied += n;
+                control.checkpoint(Phase.ENCODING, copied, 0);
+            }
+            if (copied != srcBytes) {
+                throw new CodecException("압축 중 파일이 변경되었습니다.");
+            }
+        }
+    }
+
     /** (테스트용!) 허프만 트리 헤더 정보를 점검합니다. */
     private void preorder(Node node) {
         if (node != null) {
@@ -146,17 +652,32 @@ public class Compressor {
         }
     }
 
+    /**
+     * 파일 전체의 문자 출현 횟수를 세기 위해 원본을 읽는 스트림을 엽니다. 이미 열려 있으면(메모리의 데이터이면) 그대로 사용합니다.
+     * 표본이나 히스토그램으로 표를 만들면 열지 않으므로, 읽기 스레드가 파일 전체를 미리 읽지 않습니다.
+     */
+    private void openPreprocessReader() throws FileNotFoundException {
+        if (preprocessReader != null) return;
+
+        preprocessCounter = new CountingInputStream(new AsyncBlockInputStream(new FileInputStream(src)));
+        preprocessReader = new BufferedReader(new InputStreamReader(preprocessCounter, StandardCharsets.UTF_8));
+    }
+
     /** 문자 출현 횟수를 계산합니다. */
     private List<Integer> calculateFrequency() throws IOException {
         int ch;
         
         try {
+            openPreprocessReader();
             // 문자 단위로 읽고, 문자 출현 횟수를 셉니다.
             while ((ch = preprocessReader.read()) != -1) {
                 frequency.put(ch, frequency.getOrDefault(ch, 0) + 1);
                 ++totalChars;
                 if (totalChars == Integer.MAX_VALUE) {
-                    throw new IOException("파일 용량이 너무 큽니다.");
+                    throw new CodecException("파일 용량이 너무 큽니다.");
+                }
+                if ((totalChars & (JobControl.CHECK_INTERVAL - 1)) == 0) {
+                    control.checkpoint(Phase.COUNTING, preprocessCounter.getCount(), totalChars);
                 }
             }
         } catch (IOException ex) {
@@ -171,10 +692,135 @@ public class Compressor {
         return sortedChars;
     }
 
+    /** 파일의 일부 구간만 읽어 문자 출현 횟수를 추정합니다. 탈출 코드도 표에 추가합니다. */
+    private List<Integer> sampleFrequency() throws IOException {
+        long length = src.length();
+        int blocks = (int) Math.max(1, (long) (length * sampleRatio) / SAMPLE_BLOCK_SIZE);
+        long stride = length / blocks;
+        Random random = new Random(length);
+
+        try (RandomAccessFile raf = new RandomAccessFile(src, "r")) {
+            byte[] block = new byte[SAMPLE_BLOCK_SIZE];
+
+            for (int i = 0; i < blocks; ++i) {
+                control.checkpoint(Phase.COUNTING, (long) i * SAMPLE_BLOCK_SIZE, 0);
+                long offset = sampleRandom ? (long) (random.nextDouble() * (length - SAMPLE_BLOCK_SIZE)) : i * stride;
+                raf.seek(offset);
+
+                int n = 0;
+                int readBytes;
+                while (n < block.length && (readBytes = raf.read(block, n, block.length - n)) != -1) {
+                    n += readBytes;
+                }
+
+                // 구간 경계에서 잘린 UTF-8 문자는 제외합니다. (10xxxxxx는 문자의 첫 바이트가 아닙니다.)
+                int start = 0;
+                while (start < n && (block[start] & 0xC0) == 0x80) ++start;
+                int end = n;
+                while (end > start && (block[end - 1] & 0xC0) == 0x80) --end;
+                if (end > start && offset + n < length) --end;
+
+                String sample = new String(block, start, end - start, StandardCharsets.UTF_8);
+                for (int idx = 0; idx < sample.length(); ++idx) {
+                    int ch = sample.charAt(idx);
+                    // 탈출 문자와 같은 문자는 항상 탈출 코드로 씁니다.
+                    if (ch != HuffmanFormat.ESCAPE_CHARACTER) {
+                        frequency.put(ch, frequency.getOrDefault(ch, 0) + 1);
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            System.err.println("전처리 오류가 발생했습니다: " + ex.getMessage());
+            throw ex;
+        }
+
+        if (length == 0) {
+            throw new CodecException("전처리 오류가 발생했습니다: 빈 텍스트 파일입니다.");
+        }
+        frequency.put((int) HuffmanFormat.ESCAPE_CHARACTER, 1);
+
+        // 문자 출현 횟수순으로 정렬합니다.
+        List<Integer> sortedChars = new ArrayList<>(frequency.keySet());
+        sortedChars.sort((o1, o2) -> frequency.get(o2) - frequency.get(o1));
+
+        return sortedChars;
+    }
+
+    /** 주어진 히스토그램의 출현 횟수를 사용합니다. 원본은 읽지 않으며, 탈출 코드도 표에 추가합니다. */
+    private List<Integer> histogramFrequency() {
+        frequency.putAll(histogram.toFrequency());
+        frequency.put((int) HuffmanFormat.ESCAPE_CHARACTER, 1);
+
+        // 문자 출현 횟수순으로 정렬합니다.
+        List<Integer> sortedChars = new ArrayList<>(frequency.keySet());
+        sortedChars.sort((o1, o2) -> frequency.get(o2) - frequency.get(o1));
+
+        return sortedChars;
+    }
+
+    /** 본문을 쓴 뒤 헤더의 문자 수 자리에 실제 문자 수를 씁니다. */
+    private void patchTotalChars() throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(out, "rw")) {
+            // 식별자('E')와 플래그 다음이 문자 수 자리입니다.
+            raf.seek(blockOffset + 2);
+            raf.writeInt(totalChars);
+        }
+    }
+
+    /** 본문을 쓴 뒤 헤더에 비워 둔 자리에 동기점 색인을 씁니다. 색인은 헤더의 마지막 부분입니다. */
+    private void patchSyncIndex() throws IOException {
+        byte[] index = syncIndex.toBytes();
+        try (RandomAccessFile raf = new RandomAccessFile(out, "rw")) {
+            raf.seek(blockOffset + estimate.getHeaderBytes() - index.length);
+            raf.write(index);
+        }
+    }
+
+    /** 현재 허프만 코드로 본문을 쓸 때의 비트 수를 계산합니다. */
+    private long bodyBits(int[] counts) {
+        long bits = 0;
+        int escapeLength = huffmanCodes.get(HuffmanFormat.ESCAPE_CHARACTER).length() + HuffmanFormat.ESCAPE_BITS;
+
+        for (int ch = 0; ch < counts.length; ++ch) {
+            if (counts[ch] == 0) continue;
+
+            String huffmanCode = (ch == HuffmanFormat.ESCAPE_CHARACTER) ? null : huffmanCodes.get((char) ch);
+            bits += (long) counts[ch] * ((huffmanCode != null) ? huffmanCode.length() : escapeLength);
+        }
+
+        return bits;
+    }
+
+    /** 정확한 문자 출현 횟수로 허프만 트리를 만들었을 때의 본문 비트 수를 계산합니다. */
+    static long optimalBits(int[] counts) {
+        MinHeap heap = new MinHeap();
+        for (int ch = 0; ch < counts.length; ++ch) {
+            if (counts[ch] > 0) {
+                heap.insert(new Node(ch, counts[ch]));
+            }
+        }
+        if (heap.size() < 2) {
+            // 문자가 한 종류뿐이어도 코드 길이는 1비트입니다.
+            return (heap.size() == 0) ? 0 : heap.delete().getFrequency();
+        }
+
+        // 두 노드를 합칠 때마다 두 노드 아래의 모든 문자의 코드가 1비트씩 길어집니다.
+        long bits = 0;
+        while (heap.size() > 1) {
+            Node nodeA = heap.delete();
+            Node nodeB = heap.delete();
+            int merged = nodeA.getFrequency() + nodeB.getFrequency();
+            bits += merged;
+            heap.insert(new Node(MEANINGLESS_CHARACTER, merged, nodeA, nodeB));
+        }
+
+        return bits;
+    }
+
     /** 허프만 트리를 구성합니다. */
     public void makeHuffmanTree(List<Integer> sortedChars) throws IOException {
         if (sortedChars.isEmpty()) {
-            throw new IOException("전처리 오류가 발생했습니다: 빈 텍스트 파일입니다.");
+            throw new CodecException("전처리 오류가 발생했습니다: 빈 텍스트 파일입니다.");
         }
 
         // 문자 출현 횟수순으로 최소 힙에 노드를 만들어 삽입합니다.
@@ -193,13 +839,13 @@ public class Compressor {
     }
 
     /** 허프만 코드를 생성합니다. */
-    private void makeHuffmanCode(Node node, String code) {
+    private void makeHuffmanCode(Node node, String code, Map<Character, String> codes) {
         if (node != null) {
             if (node.isLeaf()) {
-                huffmanCodes.put((char) node.getCharacter(), code);
+                codes.put((char) node.getCharacter(), code);
             } else {
-                makeHuffmanCode(node.getLeft(), code + "0");
-                makeHuffmanCode(node.getRight(), code + "1");
+                makeHuffmanCode(node.getLeft(), code + "0", codes);
+                makeHuffmanCode(node.getRight(), code + "1", codes);
             }
         }
     }
@@ -207,9 +853,17 @@ public class Compressor {
     /** 헤더 정보를 씁니다. */
     private void writeHeader(Node node) throws IOException {
         try {
-            // 압축 파일의 식별자 'H'를 파일에 씁니다.
-            writer.write('H');
-            compressResult.append('H');
+            // 압축 파일의 식별자를 파일에 씁니다. 확장 기능을 사용하면 확장 형식('E')과 플래그를 씁니다.
+            int flags = ((streams > 1) ? HuffmanFormat.FLAG_INTERLEAVED : 0) | (escape ? HuffmanFormat.FLAG_ESCAPE : 0)
+                    | ((syncIndex != null) ? HuffmanFormat.FLAG_SYNC_INDEX : 0);
+            if (flags != 0) {
+                writer.write(HuffmanFormat.EXTENDED);
+                writer.write(flags);
+                compressResult.append((char) HuffmanFormat.EXTENDED).append(' ').append(flags);
+            } else {
+                writer.write(HuffmanFormat.CLASSIC);
+                compressResult.append((char) HuffmanFormat.CLASSIC);
+            }
             compressResult.append("\n");
 
             // 읽은 문자의 수를 파일에 씁니다.
@@ -236,6 +890,12 @@ public class Compressor {
             writeHeaderCharacter(node);
             writer.write(MEANINGLESS_CHARACTER);
             compressResult.append("\n\n");
+
+            // 동기점 색인은 본문을 쓴 뒤에 알 수 있으므로 자리만 비워 둡니다.
+            if (syncIndex != null) {
+                writer.write(new byte[(int) CompressionEstimate.syncIndexBytes(syncIndex.bitOffsets.length)]);
+                compressResult.append("[동기점 ").append(syncIndex.bitOffsets.length).append("개]\n");
+            }
         } catch (IOException ex) {
             System.err.println("헤더 쓰기 중 오류 발생: " + ex.getMessage());
             throw ex;
@@ -267,7 +927,8 @@ public class Compressor {
         if (node != null) {
             // 말단 노드이면 파일에 문자를 씁니다.
             if (node.isLeaf()) {
-                writer.write(String.valueOf((char) node.getCharacter()).getBytes(StandardCharsets.UTF_8));
+                byte[] bytes = new byte[Utf8.MAX_CHAR_BYTES];
+                writer.write(bytes, 0, Utf8.encode(bytes, 0, (char) node.getCharacter()));
                 compressResult.append("'").append((char) node.getCharacter()).append("' ");
                 return;
             }
@@ -278,19 +939,68 @@ public class Compressor {
         }
     }
 
+    /**
+     * 문자에 해당하는 허프만 코드를 반환합니다.
+     * 탈출 코드를 사용하면 표에 없는 문자는 탈출 코드 뒤에 16비트 문자 값을 붙여 반환합니다.
+     */
+    private String codeOf(int ch) throws IOException {
+        String huffmanCode = (escape && ch == HuffmanFormat.ESCAPE_CHARACTER) ? null : huffmanCodes.get((char) ch);
+
+        if (huffmanCode == null) {
+            if (!escape) {
+                throw new CodecException("허프만 코드가 존재하지 않습니다: " + (char) ch);
+            }
+
+            ++escapedChars;
+            return huffmanCodes.get(HuffmanFormat.ESCAPE_CHARACTER) + Integer.toBinaryString(ch | (1 << HuffmanFormat.ESCAPE_BITS)).substring(1);
+        }
+
+        return huffmanCode;
+    }
+
+    /** 표본으로 표를 만들었다면 본문을 읽으며 문자 수와 정확한 출현 횟수를 셉니다. */
+    private void countExact(int[] exactCounts, int ch) throws IOException {
+        if (exactCounts != null) {
+            ++exactCounts[ch];
+            if (++totalChars == Integer.MAX_VALUE) {
+                throw new CodecException("파일 용량이 너무 큽니다.");
+            }
+        }
+    }
+
+    /** 본문을 쓰기 위해 원본을 다시 읽는 스트림을 엽니다. 이미 열려 있으면(메모리의 데이터이면) 그대로 사용합니다. */
+    private void openReader() throws FileNotFoundException {
+        if (reader != null) return;
+
+        readerCounter = new CountingInputStream(new AsyncBlockInputStream(new FileInputStream(src)));
+        reader = new BufferedReader(new InputStreamReader(readerCounter, StandardCharsets.UTF_8));
+    }
+
     /** 문자에 해당하는 허프만 코드를 파일에 씁니다. */
-    private void writeBody() throws IOException {
+    private void writeBody(int[] exactCounts) throws IOException {
+        openReader();
+        if (parallelism > 1) {
+            writeParallelBody(exactCounts);
+            return;
+        }
+
         try {
             int readCh;
             int buffer = 0;
             int bufferIdx = 0;
+            long symbols = 0;
+            long bits = 0;
 
             while ((readCh = reader.read()) != -1) {
                 // 허프만 코드를 가져옵니다.
-                String huffmanCode = huffmanCodes.get((char) readCh);
-
-                if (huffmanCode == null) {
-                    throw new IOException("허프만 코드가 존재하지 않습니다: " + (char) readCh);
+                String huffmanCode = codeOf(readCh);
+                countExact(exactCounts, readCh);
+                if (syncIndex != null) {
+                    syncIndex.add(symbols, (char) readCh, bits);
+                }
+                bits += huffmanCode.length();
+                if ((++symbols & (JobControl.CHECK_INTERVAL - 1)) == 0) {
+                    control.checkpoint(Phase.ENCODING, readerCounter.getCount(), symbols);
                 }
 
                 // 문자열을 하나씩 읽어 비트에 씁니다.
@@ -313,12 +1023,200 @@ public class Compressor {
                 buffer <<= (8 - bufferIdx);
                 writer.write(buffer);
             }
+            if (syncIndex != null) {
+                syncIndex.bodyBits = bits;
+            }
         } catch (IOException ex) {
             System.err.println("압축 오류가 발생했습니다: " + ex.getMessage());
             throw ex;
         }
     }
 
+    /**
+     * 여러 스레드가 본문을 나누어 부호화합니다. 결과는 writeBody()와 같은 하나의 비트 스트림입니다.
+     * 문자별 코드를 배열로 펼쳐 두므로, 탈출 코드를 사용하면 표에 없는 문자도 탈출 코드와 문자 값을 합친 코드 하나로 씁니다.
+     */
+    private void writeParallelBody(int[] exactCounts) throws IOException {
+        long[] codeBits = new long[Character.MAX_VALUE + 1];
+        byte[] codeLengths = new byte[Character.MAX_VALUE + 1];
+        boolean[] escaped = new boolean[Character.MAX_VALUE + 1];
+
+        if (escape) {
+            String escapeCode = huffmanCodes.get(HuffmanFormat.ESCAPE_CHARACTER);
+            long escapeBits = Long.parseLong(escapeCode, 2) << HuffmanFormat.ESCAPE_BITS;
+            for (int ch = 0; ch <= Character.MAX_VALUE; ++ch) {
+                codeBits[ch] = escapeBits | ch;
+                codeLengths[ch] = (byte) (escapeCode.length() + HuffmanFormat.ESCAPE_BITS);
+                escaped[ch] = true;
+            }
+        }
+        for (Map.Entry<Character, String> entry : huffmanCodes.entrySet()) {
+            char ch = entry.getKey();
+            if (escape && ch == HuffmanFormat.ESCAPE_CHARACTER) continue;
+
+            codeBits[ch] = Long.parseLong(entry.getValue(), 2);
+            codeLengths[ch] = (byte) entry.getValue().length();
+            escaped[ch] = false;
+        }
+
+        try (ParallelBodyEncoder encoder = new ParallelBodyEncoder(parallelism, codeBits, codeLengths, escaped, exactCounts != null, syncIndex)) {
+            long symbols = 0;
+            int n;
+            while ((n = encoder.fill(reader)) > 0) {
+                symbols += n;
+                if (exactCounts != null) {
+                    if ((long) totalChars + n >= Integer.MAX_VALUE) {
+                        throw new CodecException("파일 용량이 너무 큽니다.");
+                    }
+                    totalChars += n;
+                }
+
+                encoder.encode(n, writer);
+                control.checkpoint(Phase.ENCODING, readerCounter.getCount(), symbols);
+            }
+            encoder.finish(writer);
+
+            if (exactCounts != null) {
+                encoder.mergeExactCounts(exactCounts);
+            }
+            escapedChars += encoder.getEscapedChars();
+            compressResult.append("(").append(parallelism).append("개 스레드로 부호화)\n");
+        } catch (IOException ex) {
+            System.err.println("압축 오류가 발생했습니다: " + ex.getMessage());
+            throw ex;
+        }
+    }
+
+    /** 문자를 여러 비트 스트림에 번갈아 나누어 쓰고, 스트림 표와 함께 파일에 씁니다. */
+    private void writeInterleavedBody(int[] exactCounts) throws IOException {
+        try {
+            openReader();
+            BitWriter[] bitWriters = new BitWriter[streams];
+            for (int i = 0; i < streams; ++i) {
+                bitWriters[i] = new BitWriter(totalChars / streams);
+            }
+
+            int readCh;
+            int charIdx = 0;
+
+            while ((readCh = reader.read()) != -1) {
+                // 허프만 코드를 가져옵니다.
+                String huffmanCode = codeOf(readCh);
+                countExact(exactCounts, readCh);
+
+                bitWriters[charIdx++ % streams].writeCode(huffmanCode);
+                if ((charIdx & (JobControl.CHECK_INTERVAL - 1)) == 0) {
+                    control.checkpoint(Phase.ENCODING, readerCounter.getCount(), charIdx);
+                }
+            }
+
+            // 스트림 개수와 스트림별 바이트 수를 씁니다.
+            writer.write(streams);
+            for (BitWriter bitWriter : bitWriters) {
+                bitWriter.pad();
+                for (int i = 4; i > 0; --i) {
+                    writer.write((bitWriter.size() >> (8 * (i - 1))) & 0xFF);
+                }
+                compressResult.append(bitWriter.size()).append("Bytes ");
+            }
+            compressResult.append("\n");
+
+            // 스트림을 차례로 씁니다.
+            for (BitWriter bitWriter : bitWriters) {
+                writer.write(bitWriter.getBytes(), 0, bitWriter.size());
+            }
+        } catch (IOException ex) {
+            System.err.println("압축 오류가 발생했습니다: " + ex.getMessage());
+            throw ex;
+        }
+    }
+
+    /**
+     * 캐시에 같은 내용의 결과가 있으면 출력에 쓰고 통계를 불러옵니다.
+     * 없으면 키만 계산해 두고 false를 반환하며, 압축을 마친 뒤 그 키로 결과를 넣습니다.
+     * 키는 문자를 세기 전에 원본의 바이트만 해시해 계산하므로, 적중하면 문자를 세거나 트리를 만들지 않고 바로 끝납니다.
+     */
+    private boolean restoreFromCache() throws IOException {
+        // 히스토그램으로 만든 표는 원본 내용만으로 정해지지 않으므로 캐시를 사용하지 않습니다.
+        if (cache == null || appendTarget != null || histogram != null) {
+            return false;
+        }
+
+        // 설정이 다르면 결과도 다르므로 키에 함께 넣습니다. 스레드 수는 결과를 바꾸지 않습니다.
+        String options = "streams=" + streams + ";sample=" + sampleRatio + ";random=" + sampleRandom;
+        cacheSrcBytes = src.length();
+        cacheSrcModified = src.lastModified();
+        try (InputStream in = new FileInputStream(src)) {
+            cacheKey = ResultCache.keyOf(in, options);
+        }
+
+        Properties stats = cache.get(cacheKey, writer);
+        if (stats == null) {
+            return false;
+        }
+        writer.flush();
+
+        totalChars = Integer.parseInt(stats.getProperty("totalChars"));
+        stored = Boolean.parseBoolean(stats.getProperty("stored"));
+        escapedChars = Integer.parseInt(stats.getProperty("escapedChars"));
+        sampleLoss = Double.parseDouble(stats.getProperty("sampleLoss"));
+        if (stats.getProperty("estimate.huffmanBytes") != null) {
+            estimate = new CompressionEstimate(getSrcVolume(), totalChars, Integer.parseInt(stats.getProperty("estimate.usedChars")),
+                    Long.parseLong(stats.getProperty("estimate.headerBytes")), Long.parseLong(stats.getProperty("estimate.bodyBits")),
+                    Long.parseLong(stats.getProperty("estimate.huffmanBytes")), Boolean.parseBoolean(stats.getProperty("estimate.exact")));
+        }
+        for (String property : stats.stringPropertyNames()) {
+            if (property.startsWith("frequency.")) {
+                frequency.put(Integer.parseInt(property.substring(10)), Integer.parseInt(stats.getProperty(property)));
+            } else if (property.startsWith("code.")) {
+                huffmanCodes.put((char) Integer.parseInt(property.substring(5)), stats.getProperty(property));
+            }
+        }
+
+        compressResult.append("[캐시]\n").append(cacheKey).append("\n");
+        return true;
+    }
+
+    /** 압축 결과와 통계를 캐시에 넣습니다. 캐시에 쓰지 못해도 압축 결과는 완전하므로 압축은 실패로 보지 않습니다. */
+    private void storeToCache() {
+        // 키를 계산한 뒤 원본이 바뀌었으면 이 결과는 키의 내용과 다를 수 있습니다.
+        if (src.length() != cacheSrcBytes || src.lastModified() != cacheSrcModified) {
+            System.err.println(name + "이(가) 압축 중 변경되어 캐시에 넣지 않습니다.");
+            return;
+        }
+
+        Properties stats = new Properties();
+        stats.setProperty("totalChars", Integer.toString(totalChars));
+        stats.setProperty("stored", Boolean.toString(stored));
+        stats.setProperty("escapedChars", Integer.toString(escapedChars));
+        stats.setProperty("sampleLoss", Double.toString(sampleLoss));
+        if (estimate != null) {
+            stats.setProperty("estimate.usedChars", Integer.toString(estimate.getUsedChars()));
+            stats.setProperty("estimate.headerBytes", Long.toString(estimate.getHeaderBytes()));
+            stats.setProperty("estimate.bodyBits", Long.toString(estimate.getBodyBits()));
+            stats.setProperty("estimate.huffmanBytes", Long.toString(estimate.getHuffmanBytes()));
+            stats.setProperty("estimate.exact", Boolean.toString(estimate.isExact()));
+        }
+        for (Map.Entry<Integer, Integer> entry : frequency.entrySet()) {
+            stats.setProperty("frequency." + entry.getKey(), Integer.toString(entry.getValue()));
+        }
+        for (Map.Entry<Character, String> entry : huffmanCodes.entrySet()) {
+            stats.setProperty("code." + (int) entry.getKey(), entry.getValue());
+        }
+
+        try {
+            cache.put(cacheKey, out.toPath(), stats);
+        } catch (IOException ex) {
+            // ResultCache가 이미 오류를 출력했습니다.
+        }
+    }
+
+    /** 압축 전 데이터의 용량을 반환합니다. */
+    long getSrcVolume() { return (src != null) ? src.length() : data.remaining(); }
+
+    /** 압축 후 데이터의 용량을 반환합니다. */
+    long getOutVolume() { return (out != null) ? out.length() : outCounter.getCount(); }
+
     /** (GUI) 압축한 결과를 반환합니다. */
     String getResult() { return this.compressResult.toString(); }
 }
@@ -13,11 +13,11 @@ public class CompressorData {
     }
 
     public static long getSrcVolume(Compressor compressor) {
-        return compressor.src.length();
+        return compressor.getSrcVolume();
     }
 
     public static long getOutVolume(Compressor compressor) {
-        return compressor.out.length();
+        return compressor.getOutVolume();
     }
 
     public static String getFrequency(Compressor compressor) {
@@ -37,6 +37,26 @@ public class CompressorData {
         return compressor.elapsedTime;
     }
 
+    public static boolean isStored(Compressor compressor) {
+        return compressor.stored;
+    }
+
+    public static boolean isTableReused(Compressor compressor) {
+        return compressor.reused;
+    }
+
+    public static CompressionEstimate getEstimate(Compressor compressor) {
+        return compressor.estimate;
+    }
+
+    public static int getEscapedChars(Compressor compressor) {
+        return compressor.escapedChars;
+    }
+
+    public static double getSampleLoss(Compressor compressor) {
+        return compressor.sampleLoss;
+    }
+
     public static String getResult(Compressor compressor) {
         return compressor.getResult();
     }
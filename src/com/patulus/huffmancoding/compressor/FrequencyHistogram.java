@@ -0,0 +1,183 @@
+package com.patulus.huffmancoding.compressor;
+
+import com.patulus.huffmancoding.general.HuffmanFormat;
+import com.patulus.huffmancoding.job.CorruptDataException;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 문자별 출현 횟수를 모은 히스토그램입니다.
+ * 여러 스레드나 프로세스, 노드에서 따로 센 히스토그램을 합치면(merge) 전체를 한 번에 센 것과 같으므로,
+ * 원본을 한곳에 모으지 않고도 모든 조각에 공통인 표를 만들 수 있습니다. 합치는 순서는 결과에 영향을 주지 않습니다.
+ *
+ * 스레드에 안전하지 않으므로 스레드마다 따로 센 뒤 합쳐야 합니다.
+ * 만든 히스토그램은 Compressor.setHistogram()으로 넘겨 표를 만드는 데 사용합니다.
+ */
+public class FrequencyHistogram {
+    /** 직렬화한 히스토그램의 식별자('HFQ1')입니다. */
+    private static final int MAGIC = 0x48465131;
+    /** 파일을 셀 때 한 번에 읽는 문자 수입니다. */
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /** 문자별 출현 횟수입니다. 여러 조각을 합치면 int 범위를 넘을 수 있으므로 long으로 셉니다. */
+    private final long[] counts;
+    /** 센 문자의 개수입니다. */
+    private long totalChars;
+
+    public FrequencyHistogram() {
+        this.counts = new long[Character.MAX_VALUE + 1];
+        this.totalChars = 0;
+    }
+
+    /** UTF-8 텍스트 파일의 문자 출현 횟수를 셉니다. Compressor와 같이 잘못된 바이트열은 대체 문자로 셉니다. */
+    public static FrequencyHistogram of(Path path) throws IOException {
+        FrequencyHistogram histogram = new FrequencyHistogram();
+
+        try (Reader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8))) {
+            histogram.add(reader);
+        } catch (IOException ex) {
+            System.err.println("전처리 오류가 발생했습니다: " + ex.getMessage());
+            throw ex;
+        }
+
+        return histogram;
+    }
+
+    /** 문자 하나를 셉니다. */
+    public void add(char ch) {
+        ++counts[ch];
+        ++totalChars;
+    }
+
+    /** 배열의 문자를 셉니다. */
+    public void add(char[] chars, int off, int len) {
+        for (int i = off; i < off + len; ++i) {
+            ++counts[chars[i]];
+        }
+        totalChars += len;
+    }
+
+    /** 문자열의 문자를 셉니다. */
+    public void add(CharSequence text) {
+        for (int i = 0; i < text.length(); ++i) {
+            ++counts[text.charAt(i)];
+        }
+        totalChars += text.length();
+    }
+
+    /** 스트림의 끝까지 문자를 셉니다. 스트림은 닫지 않습니다. */
+    public void add(Reader reader) throws IOException {
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        int readChars;
+        while ((readChars = reader.read(buffer)) != -1) {
+            add(buffer, 0, readChars);
+        }
+    }
+
+    /** 다른 히스토그램의 출현 횟수를 더하고 자신을 반환합니다. */
+    public FrequencyHistogram merge(FrequencyHistogram other) {
+        for (int ch = 0; ch < counts.length; ++ch) {
+            counts[ch] += other.counts[ch];
+        }
+        totalChars += other.totalChars;
+        return this;
+    }
+
+    /** 문자의 출현 횟수입니다. */
+    public long getCount(char ch) { return counts[ch]; }
+
+    /** 센 문자의 개수입니다. */
+    public long getTotalChars() { return this.totalChars; }
+
+    /** 한 번 이상 나온 문자의 종류 수입니다. */
+    public int getUsedChars() {
+        int used = 0;
+        for (long count : counts) {
+            if (count > 0) ++used;
+        }
+        return used;
+    }
+
+    /**
+     * 히스토그램을 스트림에 씁니다. 나온 문자만 쓰므로 크기는 문자 종류 수에 비례합니다.
+     * 식별자(4) | 문자 수(8) | 문자 종류 수(4) | (문자(2) | 출현 횟수(8)) * 문자 종류 수
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeLong(totalChars);
+        data.writeInt(getUsedChars());
+        for (int ch = 0; ch < counts.length; ++ch) {
+            if (counts[ch] > 0) {
+                data.writeChar(ch);
+                data.writeLong(counts[ch]);
+            }
+        }
+        data.flush();
+    }
+
+    /** writeTo()로 쓴 히스토그램을 읽습니다. */
+    public static FrequencyHistogram readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        FrequencyHistogram histogram = new FrequencyHistogram();
+
+        try {
+            if (data.readInt() != MAGIC) {
+                throw new CorruptDataException("히스토그램 형식이 올바르지 않습니다.");
+            }
+            long totalChars = data.readLong();
+            int usedChars = data.readInt();
+            if (usedChars < 0 || usedChars > Character.MAX_VALUE + 1) {
+                throw new CorruptDataException("히스토그램 형식이 올바르지 않습니다: 문자 종류 수가 잘못되었습니다.");
+            }
+
+            long sum = 0;
+            for (int i = 0; i < usedChars; ++i) {
+                char ch = data.readChar();
+                long count = data.readLong();
+                if (count <= 0 || histogram.counts[ch] != 0) {
+                    throw new CorruptDataException("히스토그램 형식이 올바르지 않습니다: 출현 횟수가 잘못되었습니다.");
+                }
+                histogram.counts[ch] = count;
+                sum += count;
+            }
+            if (sum != totalChars) {
+                throw new CorruptDataException("히스토그램 형식이 올바르지 않습니다: 문자 수가 맞지 않습니다.");
+            }
+            histogram.totalChars = totalChars;
+        } catch (EOFException ex) {
+            throw new CorruptDataException("히스토그램을 읽는 중 파일의 끝에 도달했습니다.");
+        }
+
+        return histogram;
+    }
+
+    /**
+     * 허프만 트리를 만들 출현 횟수를 반환합니다. 탈출 문자는 항상 탈출 코드로 쓰므로 제외합니다.
+     * 트리의 노드는 int로 세므로, 전체 문자 수가 int 범위를 넘으면 비율을 유지하며 줄입니다. 나온 문자는 1 이상으로 남습니다.
+     */
+    Map<Integer, Integer> toFrequency() {
+        long divisor = totalChars / (Integer.MAX_VALUE / 2) + 1;
+
+        Map<Integer, Integer> frequency = new HashMap<>();
+        for (int ch = 0; ch < counts.length; ++ch) {
+            if (counts[ch] > 0 && ch != HuffmanFormat.ESCAPE_CHARACTER) {
+                frequency.put(ch, (int) Math.max(1, counts[ch] / divisor));
+            }
+        }
+        return frequency;
+    }
+}
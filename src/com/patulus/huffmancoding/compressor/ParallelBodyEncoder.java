@@ -0,0 +1,327 @@
+package com.patulus.huffmancoding.compressor;
+
+import com.patulus.huffmancoding.general.HuffmanFormat;
+import com.patulus.huffmancoding.job.CodecException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 본문을 여러 스레드가 나누어 부호화해 하나의 비트 스트림으로 씁니다.
+ * 문자를 창 단위로 읽어 조각으로 나눈 뒤, 조각별 비트 수를 병렬로 세고 누적 합으로 각 조각이 시작할 비트 위치를 정합니다.
+ * 각 스레드는 그 위치부터 공유 출력 버퍼에 직접 쓰며, 이웃 조각과 함께 쓰는 처음과 마지막 바이트만 따로 모아 OR로 합칩니다.
+ * 동기점 색인을 쓰면 비트 수를 셀 때 동기점의 조각 안 위치와 구간의 문자 서명도 모으고, 누적 합을 구한 뒤 본문 전체의 위치로 바꿉니다.
+ */
+class ParallelBodyEncoder implements AutoCloseable {
+    /** 스레드 하나가 창마다 맡는 문자 수입니다. */
+    static final int CHUNK_CHARS = 1 << 18;
+    /** 코드를 누산기에 한 번에 넣는 비트 수입니다. 남은 비트(8 미만)와 합쳐도 64비트를 넘지 않습니다. */
+    private static final int MAX_APPEND_BITS = 32;
+
+    private final int parallelism;
+    private final ExecutorService executor;
+
+    /** 문자별 허프만 코드와 길이입니다. 길이가 0이면 코드가 없는 문자입니다. */
+    private final long[] codeBits;
+    private final byte[] codeLengths;
+    /** 탈출 코드로 쓰는 문자인지 여부입니다. */
+    private final boolean[] escaped;
+
+    /** 읽은 문자를 담는 창과, 창을 부호화한 결과를 담는 공유 출력 버퍼입니다. */
+    private final char[] window;
+    private byte[] out;
+
+    /** 조각별 비트 수와 시작 비트 위치입니다. */
+    private final long[] bitLengths;
+    private final long[] offsets;
+    /** 조각별로 이웃과 함께 쓰는 처음 바이트와 마지막 바이트, 그리고 그 위치입니다. */
+    private final byte[] heads;
+    private final byte[] tails;
+    private final int[] tailIdx;
+    /** 조각별로 센 정확한 출현 횟수와 탈출 코드로 쓴 문자 수입니다. */
+    private final int[][] exactCounts;
+    private final int[] escapedCounts;
+
+    /** 동기점 색인과, 조각별로 모은 구간의 문자 서명입니다. 색인을 쓰지 않으면 null입니다. */
+    private final SyncIndex syncIndex;
+    private final long[][] chunkSignatures;
+    private final int[] firstPoints;
+    private final int[] pointCounts;
+
+    /** 이전 창에서 바이트를 채우지 못하고 남은 비트입니다. */
+    private int carry;
+    private int carryBits;
+    /** 이전 창까지 읽은 문자 수와 쓴 바이트 수입니다. */
+    private long charBase;
+    private long writtenBytes;
+
+    ParallelBodyEncoder(int parallelism, long[] codeBits, byte[] codeLengths, boolean[] escaped, boolean countExact, SyncIndex syncIndex) {
+        this.parallelism = parallelism;
+        this.executor = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "hfm-encoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.codeBits = codeBits;
+        this.codeLengths = codeLengths;
+        this.escaped = escaped;
+
+        this.window = new char[parallelism * CHUNK_CHARS];
+        this.out = new byte[0];
+
+        this.bitLengths = new long[parallelism];
+        this.offsets = new long[parallelism + 1];
+        this.heads = new byte[parallelism];
+        this.tails = new byte[parallelism];
+        this.tailIdx = new int[parallelism];
+        this.exactCounts = countExact ? new int[parallelism][Character.MAX_VALUE + 1] : null;
+        this.escapedCounts = new int[parallelism];
+
+        this.syncIndex = syncIndex;
+        this.chunkSignatures = (syncIndex != null) ? new long[parallelism][CHUNK_CHARS / HuffmanFormat.SYNC_INTERVAL + 2] : null;
+        this.firstPoints = new int[parallelism];
+        this.pointCounts = new int[parallelism];
+    }
+
+    /** 창 하나만큼 문자를 읽습니다. 읽은 문자 수를 반환하며, 0이면 끝입니다. */
+    int fill(Reader reader) throws IOException {
+        int n = 0;
+        int readChars;
+        while (n < window.length && (readChars = reader.read(window, n, window.length - n)) != -1) {
+            n += readChars;
+        }
+        return n;
+    }
+
+    /** 창에 읽은 문자 n개를 부호화해 완성된 바이트를 씁니다. 마지막 바이트를 채우지 못한 비트는 다음 창으로 넘깁니다. */
+    void encode(int n, OutputStream writer) throws IOException {
+        // 조각별 비트 수를 병렬로 셉니다.
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < parallelism; ++i) {
+            int chunk = i;
+            tasks.add(() -> {
+                measure(chunk, start(chunk, n), start(chunk + 1, n));
+                return null;
+            });
+        }
+        invokeAll(tasks);
+
+        // 누적 합으로 조각별 시작 비트 위치를 정합니다.
+        offsets[0] = carryBits;
+        for (int i = 0; i < parallelism; ++i) {
+            offsets[i + 1] = offsets[i] + bitLengths[i];
+        }
+        if (syncIndex != null) {
+            mergeSyncPoints(n);
+        }
+        long totalBits = offsets[parallelism];
+        int totalBytes = Math.toIntExact((totalBits + 7) >>> 3);
+        if (out.length < totalBytes) {
+            out = new byte[totalBytes];
+        }
+
+        // 조각 경계의 바이트는 OR로 합치므로 먼저 비우고, 이전 창에서 남은 비트를 둡니다.
+        for (int i = 0; i <= parallelism; ++i) {
+            int idx = (int) (offsets[i] >>> 3);
+            if (idx < totalBytes) out[idx] = 0;
+        }
+        if (carryBits > 0) {
+            out[0] = (byte) carry;
+        }
+
+        // 각 조각을 정해진 위치부터 병렬로 부호화합니다.
+        tasks.clear();
+        for (int i = 0; i < parallelism; ++i) {
+            int chunk = i;
+            tasks.add(() -> {
+                encodeChunk(chunk, start(chunk, n), start(chunk + 1, n));
+                return null;
+            });
+        }
+        invokeAll(tasks);
+
+        for (int i = 0; i < parallelism; ++i) {
+            if (heads[i] != 0) out[(int) (offsets[i] >>> 3)] |= heads[i];
+            if (tails[i] != 0) out[tailIdx[i]] |= tails[i];
+        }
+
+        // 완성된 바이트를 쓰고, 남은 비트는 다음 창으로 넘깁니다.
+        int fullBytes = (int) (totalBits >>> 3);
+        writer.write(out, 0, fullBytes);
+        carryBits = (int) (totalBits & 7);
+        carry = (carryBits > 0) ? out[fullBytes] & 0xFF : 0;
+        charBase += n;
+        writtenBytes += fullBytes;
+    }
+
+    /** 조각 안의 위치로 모은 동기점을 본문 전체의 비트 위치로 바꾸고, 조각별 문자 서명을 합칩니다. */
+    private void mergeSyncPoints(int n) {
+        for (int chunk = 0; chunk < parallelism; ++chunk) {
+            long chunkStart = charBase + start(chunk, n);
+            long bitBase = 8 * writtenBytes + offsets[chunk];
+
+            for (int k = 0; k < pointCounts[chunk]; ++k) {
+                int point = firstPoints[chunk] + k;
+                // 조각 안에서 시작하는 동기점만 이 조각이 위치를 기록했습니다.
+                if ((long) point * HuffmanFormat.SYNC_INTERVAL >= chunkStart) {
+                    syncIndex.bitOffsets[point] += bitBase;
+                }
+                syncIndex.signatures[point] |= chunkSignatures[chunk][k];
+            }
+        }
+    }
+
+    /** 남은 비트를 0으로 채워 씁니다. */
+    void finish(OutputStream writer) throws IOException {
+        if (syncIndex != null) {
+            syncIndex.bodyBits = 8 * writtenBytes + carryBits;
+        }
+        if (carryBits > 0) {
+            writer.write(carry);
+            carry = 0;
+            carryBits = 0;
+        }
+    }
+
+    /** 조각 i가 창에서 시작하는 위치입니다. */
+    private int start(int chunk, int n) {
+        return (int) ((long) n * chunk / parallelism);
+    }
+
+    /** 조각의 비트 수를 셉니다. 정확한 출현 횟수를 세야 하면 함께 셉니다. */
+    private void measure(int chunk, int from, int to) throws CodecException {
+        int[] counts = (exactCounts != null) ? exactCounts[chunk] : null;
+        long bits = 0;
+        int escapedChars = 0;
+        pointCounts[chunk] = 0;
+
+        int i = from;
+        while (i < to) {
+            // 동기점 색인을 쓰면 동기점 구간별로 나누어, 동기점의 조각 안 비트 위치와 구간의 문자 서명을 모읍니다.
+            int end = to;
+            long signature = 0;
+            if (syncIndex != null) {
+                long charIdx = charBase + i;
+                int point = syncIndex.point(charIdx);
+                if (pointCounts[chunk] == 0) {
+                    firstPoints[chunk] = point;
+                }
+                if (charIdx % HuffmanFormat.SYNC_INTERVAL == 0) {
+                    syncIndex.bitOffsets[point] = bits;
+                }
+                end = (int) Math.min(to, (long) (point + 1) * HuffmanFormat.SYNC_INTERVAL - charBase);
+            }
+
+            for (; i < end; ++i) {
+                char ch = window[i];
+                int length = codeLengths[ch];
+                if (length == 0) {
+                    throw new CodecException("허프만 코드가 존재하지 않습니다: " + ch);
+                }
+                bits += length;
+                if (escaped[ch]) ++escapedChars;
+                if (counts != null) ++counts[ch];
+                if (syncIndex != null) signature |= HuffmanFormat.signatureBit(ch);
+            }
+
+            if (syncIndex != null) {
+                chunkSignatures[chunk][pointCounts[chunk]++] = signature;
+            }
+        }
+
+        bitLengths[chunk] = bits;
+        escapedCounts[chunk] += escapedChars;
+    }
+
+    /** 조각을 시작 비트 위치부터 부호화합니다. 이웃 조각과 함께 쓰는 처음과 마지막 바이트는 따로 보관합니다. */
+    private void encodeChunk(int chunk, int from, int to) {
+        heads[chunk] = 0;
+        tails[chunk] = 0;
+        if (bitLengths[chunk] == 0) return;
+
+        int headIdx = (int) (offsets[chunk] >>> 3);
+        boolean sharedHead = (offsets[chunk] & 7) != 0;
+
+        // 시작 위치가 바이트 중간이면 앞쪽 비트를 0으로 채운 셈으로 시작합니다.
+        long acc = 0;
+        int bits = (int) (offsets[chunk] & 7);
+        int p = headIdx;
+
+        for (int i = from; i < to; ++i) {
+            char ch = window[i];
+            long code = codeBits[ch];
+            int length = codeLengths[ch];
+
+            while (length > 0) {
+                int take = Math.min(length, MAX_APPEND_BITS);
+                length -= take;
+                acc = (acc << take) | ((code >>> length) & ((1L << take) - 1));
+                bits += take;
+
+                while (bits >= 8) {
+                    bits -= 8;
+                    byte b = (byte) (acc >>> bits);
+                    if (p == headIdx && sharedHead) {
+                        heads[chunk] = b;
+                    } else {
+                        out[p] = b;
+                    }
+                    ++p;
+                }
+            }
+        }
+
+        tailIdx[chunk] = p;
+        if (bits > 0) {
+            tails[chunk] = (byte) (acc << (8 - bits));
+        }
+    }
+
+    private void invokeAll(List<Callable<Void>> tasks) throws IOException {
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CodecException("병렬 부호화 중 중단되었습니다.");
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException) {
+                throw (IOException) ex.getCause();
+            }
+            throw new CodecException("병렬 부호화 중 오류가 발생했습니다: " + ex.getCause());
+        }
+    }
+
+    /** 조각별로 센 정확한 출현 횟수를 더합니다. */
+    void mergeExactCounts(int[] target) {
+        for (int[] counts : exactCounts) {
+            for (int ch = 0; ch < counts.length; ++ch) {
+                target[ch] += counts[ch];
+            }
+        }
+    }
+
+    /** 탈출 코드로 쓴 문자의 수입니다. */
+    int getEscapedChars() {
+        int sum = 0;
+        for (int count : escapedCounts) {
+            sum += count;
+        }
+        return sum;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
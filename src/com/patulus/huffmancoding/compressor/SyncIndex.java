@@ -0,0 +1,54 @@
+package com.patulus.huffmancoding.compressor;
+
+import com.patulus.huffmancoding.general.HuffmanFormat;
+import com.patulus.huffmancoding.job.CodecException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 하나의 비트 스트림으로 쓴 본문의 동기점 색인입니다. (HuffmanFormat.FLAG_SYNC_INDEX)
+ * 본문을 쓰면서 SYNC_INTERVAL자마다 문자가 시작하는 비트 위치와 구간의 문자 서명을 모으고, 본문을 다 쓴 뒤 헤더에 비워 둔 자리에 씁니다.
+ */
+class SyncIndex {
+    /** 동기점별 비트 위치와 문자 서명입니다. */
+    final long[] bitOffsets;
+    final long[] signatures;
+    /** 본문 전체의 비트 수입니다. */
+    long bodyBits;
+
+    SyncIndex(int totalChars) {
+        int points = HuffmanFormat.syncPoints(totalChars);
+        this.bitOffsets = new long[points];
+        this.signatures = new long[points];
+    }
+
+    /** charIdx번째 문자를 bitOffset 위치에 썼음을 기록합니다. */
+    void add(long charIdx, char ch, long bitOffset) throws CodecException {
+        int point = point(charIdx);
+        if (charIdx % HuffmanFormat.SYNC_INTERVAL == 0) {
+            bitOffsets[point] = bitOffset;
+        }
+        signatures[point] |= HuffmanFormat.signatureBit(ch);
+    }
+
+    /** charIdx번째 문자가 속한 동기점의 번호입니다. 문자를 셀 때보다 문자가 많으면 원본이 바뀐 것입니다. */
+    int point(long charIdx) throws CodecException {
+        long point = charIdx / HuffmanFormat.SYNC_INTERVAL;
+        if (point >= bitOffsets.length) {
+            throw new CodecException("압축 중 파일이 변경되었습니다.");
+        }
+        return (int) point;
+    }
+
+    /** 헤더에 쓸 색인의 바이트열입니다. */
+    byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate((int) CompressionEstimate.syncIndexBytes(bitOffsets.length));
+        buffer.putInt((int) ((bodyBits + 7) / 8));
+        buffer.putInt(bitOffsets.length);
+        for (int i = 0; i < bitOffsets.length; ++i) {
+            buffer.putLong(bitOffsets[i]);
+            buffer.putLong(signatures[i]);
+        }
+        return buffer.array();
+    }
+}
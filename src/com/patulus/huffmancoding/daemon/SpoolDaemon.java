@@ -0,0 +1,311 @@
+package com.patulus.huffmancoding.daemon;
+
+import com.patulus.huffmancoding.cache.ResultCache;
+import com.patulus.huffmancoding.compressor.Compressor;
+import com.patulus.huffmancoding.compressor.CompressorData;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 스풀 디렉터리를 감시하며 새로 들어온 파일을 계속 압축하는 데몬입니다.
+ * 한 JVM이 계속 실행되므로 파일마다 프로그램을 새로 띄우지 않습니다.
+ *
+ * 파일은 크기와 수정 시각이 일정 시간 동안 바뀌지 않아야(다 써져야) 대기열에 들어갑니다.
+ * 대기열은 크기가 제한되어 있으며, 작은 파일을 먼저 처리합니다. 대기열이 가득 차면 파일은 다음 검사 때까지 기다립니다.
+ * 작은 파일이 계속 들어와도 큰 파일이 끝없이 밀리지 않도록, 나중에 들어온 파일일수록 크기를 더 크게 보고 순서를 정합니다.
+ */
+public class SpoolDaemon {
+    /** 파일이 바뀌지 않아야 하는 시간의 기본값(ms)입니다. */
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 1000;
+    /** 대기열 크기의 기본값입니다. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private final List<Path> dirs;
+    private final int workers;
+    private final long debounceMillis;
+
+    private final WatchService watchService;
+    /** 파일 크기가 작을수록 우선순위가 높은 대기열입니다. */
+    private final PriorityBlockingQueue<SpoolJob> queue;
+    /** 대기열의 크기를 제한합니다. */
+    private final Semaphore queueSlots;
+    /** 아직 쓰이고 있을 수 있어 대기열에 넣지 않은 파일입니다. 감시 스레드만 사용합니다. */
+    private final Map<Path, PendingFile> pending;
+    /** 압축을 마친 파일과 그때의 수정 시각입니다. 같은 파일을 다시 압축하지 않도록 하며, 파일이 스풀에서 사라지면 지웁니다. */
+    private final Map<Path, Long> processed;
+    private final AtomicLong sequence;
+
+    private final SpoolMetrics metrics;
+    /** 같은 내용의 파일을 다시 압축하지 않도록 결과를 보관하는 캐시입니다. 사용하지 않으면 null입니다. */
+    private volatile ResultCache cache;
+    private final ScheduledExecutorService scheduler;
+    private final List<Thread> workerThreads;
+    private volatile boolean running;
+
+    public SpoolDaemon(List<Path> dirs, int workers) throws IOException {
+        this(dirs, workers, DEFAULT_QUEUE_CAPACITY, DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    public SpoolDaemon(List<Path> dirs, int workers, int queueCapacity, long debounceMillis) throws IOException {
+        if (workers < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("작업 스레드 수와 대기열 크기는 1 이상이어야 합니다.");
+        }
+
+        this.dirs = new ArrayList<>(dirs);
+        this.workers = workers;
+        this.debounceMillis = debounceMillis;
+
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.queue = new PriorityBlockingQueue<>();
+        this.queueSlots = new Semaphore(queueCapacity);
+        this.pending = new HashMap<>();
+        this.processed = new ConcurrentHashMap<>();
+        this.sequence = new AtomicLong();
+
+        this.metrics = new SpoolMetrics();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hfm-spool-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.workerThreads = new ArrayList<>();
+
+        for (Path dir : this.dirs) {
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        }
+    }
+
+    /** 압축 결과를 보관할 캐시를 지정합니다. 내용이 같은 파일은 다시 부호화하지 않고 보관한 결과를 씁니다. */
+    public void setCache(ResultCache cache) {
+        this.cache = cache;
+    }
+
+    /** 감시와 압축을 시작합니다. 디렉터리에 이미 있는 파일도 처리합니다. */
+    public void start() throws IOException {
+        running = true;
+
+        for (Path dir : dirs) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path file : stream) {
+                    touch(file);
+                }
+            }
+        }
+
+        for (int i = 0; i < workers; ++i) {
+            Thread thread = new Thread(this::work, "hfm-spool-worker-" + i);
+            thread.start();
+            workerThreads.add(thread);
+        }
+
+        // 감시 이벤트 수집과 다 써진 파일 검사를 주기적으로 수행합니다.
+        long period = Math.max(10, debounceMillis / 2);
+        scheduler.scheduleWithFixedDelay(this::poll, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /** 감시를 멈추고, 진행 중인 작업이 끝날 때까지 기다립니다. 대기열에 남은 작업은 버립니다. */
+    public void stop() throws IOException {
+        running = false;
+        scheduler.shutdownNow();
+        watchService.close();
+
+        for (Thread thread : workerThreads) {
+            thread.interrupt();
+        }
+        for (Thread thread : workerThreads) {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public SpoolMetrics getMetrics() { return this.metrics; }
+
+    /** (감시 스레드) 감시 이벤트를 모으고, 다 써진 파일을 대기열에 넣습니다. */
+    private void poll() {
+        try {
+            WatchKey key;
+            while ((key = watchService.poll()) != null) {
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // 놓친 이벤트에 삭제가 있었을 수 있으므로 사라진 파일을 모두 잊습니다.
+                        processed.keySet().removeIf(file -> !Files.exists(file));
+                    } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        // 지워지거나 스풀 밖으로 옮겨진 파일은 잊습니다.
+                        Path file = dir.resolve((Path) event.context());
+                        processed.remove(file);
+                        pending.remove(file);
+                    } else {
+                        touch(dir.resolve((Path) event.context()));
+                    }
+                }
+                key.reset();
+            }
+
+            long now = System.currentTimeMillis();
+            Iterator<Map.Entry<Path, PendingFile>> iterator = pending.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Path, PendingFile> entry = iterator.next();
+                Path file = entry.getKey();
+                PendingFile state = entry.getValue();
+
+                // 파일이 사라졌으면 잊습니다.
+                if (!Files.isRegularFile(file)) {
+                    iterator.remove();
+                    continue;
+                }
+
+                // 크기나 수정 시각이 바뀌었으면 아직 쓰이고 있는 것으로 보고 다시 기다립니다.
+                long size = Files.size(file);
+                long modified = Files.getLastModifiedTime(file).toMillis();
+                if (size != state.size || modified != state.modified) {
+                    state.size = size;
+                    state.modified = modified;
+                    state.stableSince = now;
+                    continue;
+                }
+                if (now - state.stableSince < debounceMillis) {
+                    continue;
+                }
+
+                // 대기열이 가득 찼으면 다음 검사 때 다시 시도합니다.
+                if (!queueSlots.tryAcquire()) {
+                    break;
+                }
+                queue.put(new SpoolJob(file, size, modified, sequence.getAndIncrement()));
+                metrics.onQueued();
+                iterator.remove();
+            }
+        } catch (ClosedWatchServiceException ex) {
+            // 데몬이 멈췄습니다.
+        } catch (IOException ex) {
+            System.err.println("스풀 디렉터리 검사 중 오류 발생: " + ex.getMessage());
+        }
+    }
+
+    /** (감시 스레드) 압축할 파일이면 다 써질 때까지 지켜보도록 등록합니다. */
+    private void touch(Path file) {
+        String fileName = file.getFileName().toString();
+        // 압축 결과물과 복원 결과물, 숨김 파일은 압축하지 않습니다.
+        if (fileName.endsWith(".hfm") || fileName.endsWith("-decompressed.txt") || fileName.startsWith(".")) {
+            return;
+        }
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+
+        try {
+            Long done = processed.get(file);
+            if (done != null && done == Files.getLastModifiedTime(file).toMillis()) {
+                return;
+            }
+        } catch (IOException ex) {
+            return;
+        }
+
+        pending.computeIfAbsent(file, key -> new PendingFile(System.currentTimeMillis()));
+    }
+
+    /** (작업 스레드) 대기열에서 파일을 꺼내 압축합니다. */
+    private void work() {
+        while (running) {
+            SpoolJob job;
+            try {
+                job = queue.take();
+            } catch (InterruptedException ex) {
+                return;
+            }
+            queueSlots.release();
+            metrics.onTaken();
+
+            try {
+                Compressor compressor = new Compressor(job.file.toString());
+                if (cache != null) {
+                    compressor.setCache(cache);
+                }
+                try {
+                    compressor.run();
+                } finally {
+                    compressor.close();
+                }
+
+                processed.put(job.file, job.modified);
+                metrics.onCompleted(CompressorData.getSrcVolume(compressor), CompressorData.getOutVolume(compressor));
+            } catch (IOException | RuntimeException ex) {
+                // 실패한 파일도 같은 내용이면 다시 시도하지 않습니다. 잘못된 파일 하나로 작업 스레드가 끝나지 않도록 계속 진행합니다.
+                // Error(메모리 부족 등)는 힙 상태를 믿을 수 없으므로 잡지 않고 작업 스레드를 끝냅니다.
+                processed.put(job.file, job.modified);
+                metrics.onFailed();
+                System.err.println(job.file + " 압축 실패: " + ex);
+            }
+        }
+    }
+
+    /** 다 써지기를 기다리는 파일의 마지막 상태입니다. */
+    private static class PendingFile {
+        long size = -1;
+        long modified = -1;
+        long stableSince;
+
+        PendingFile(long now) {
+            this.stableSince = now;
+        }
+    }
+
+    /**
+     * 대기열의 작업입니다. 크기가 작은 파일, 먼저 들어온 파일 순으로 처리합니다.
+     * 들어온 순서마다 AGING_BYTES만큼 크기를 더해 비교하므로, 크기가 S인 파일은 나중에 들어온 파일에
+     * 최대 S / AGING_BYTES번만 추월당합니다.
+     */
+    private static class SpoolJob implements Comparable<SpoolJob> {
+        /** 나중에 들어온 파일 하나당 더하는 크기(바이트)입니다. */
+        private static final long AGING_BYTES = 64 * 1024;
+
+        final Path file;
+        final long size;
+        final long modified;
+        final long sequence;
+        /** 순서를 정하는 값입니다. 작을수록 먼저 처리합니다. */
+        final long priority;
+
+        SpoolJob(Path file, long size, long modified, long sequence) {
+            this.file = file;
+            this.size = size;
+            this.modified = modified;
+            this.sequence = sequence;
+            this.priority = size + sequence * AGING_BYTES;
+        }
+
+        @Override
+        public int compareTo(SpoolJob other) {
+            int byPriority = Long.compare(priority, other.priority);
+            return (byPriority != 0) ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.patulus.huffmancoding.daemon;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** 스풀 데몬의 누적 통계입니다. 작업 스레드들이 동시에 갱신합니다. */
+public class SpoolMetrics {
+    private final long startTime = System.nanoTime();
+
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+    /** 대기열에 있는 작업 수입니다. */
+    private final AtomicLong depth = new AtomicLong();
+
+    void onQueued() {
+        queued.incrementAndGet();
+        depth.incrementAndGet();
+    }
+
+    void onTaken() {
+        depth.decrementAndGet();
+    }
+
+    void onCompleted(long in, long out) {
+        completed.incrementAndGet();
+        bytesIn.addAndGet(in);
+        bytesOut.addAndGet(out);
+    }
+
+    void onFailed() {
+        failed.incrementAndGet();
+    }
+
+    public long getQueued() { return queued.get(); }
+
+    public long getCompleted() { return completed.get(); }
+
+    public long getFailed() { return failed.get(); }
+
+    public long getBytesIn() { return bytesIn.get(); }
+
+    public long getBytesOut() { return bytesOut.get(); }
+
+    public long getQueueDepth() { return depth.get(); }
+
+    /** 시작한 뒤 초당 처리한 파일 수입니다. */
+    public double getFilesPerSecond() {
+        return completed.get() / elapsedSeconds();
+    }
+
+    /** 시작한 뒤 초당 처리한 원본 바이트 수입니다. */
+    public double getBytesPerSecond() {
+        return bytesIn.get() / elapsedSeconds();
+    }
+
+    private double elapsedSeconds() {
+        return Math.max(1e-9, (System.nanoTime() - startTime) / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("대기 %d, 완료 %d, 실패 %d, %dBytes -> %dBytes, %.1f파일/s, %.1fBytes/s",
+                getQueueDepth(), getCompleted(), getFailed(), getBytesIn(), getBytesOut(), getFilesPerSecond(), getBytesPerSecond());
+    }
+}
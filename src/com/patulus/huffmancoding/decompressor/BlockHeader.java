@@ -0,0 +1,30 @@
+package com.patulus.huffmancoding.decompressor;
+
+import com.patulus.huffmancoding.general.Node;
+
+/** 압축 파일의 블록 하나의 헤더 정보입니다. */
+public class BlockHeader {
+    private final int identifier;
+    private final int flags;
+    private final int chars;
+    /** 허프만 트리의 루트 노드입니다. 저장 블록('R')이면 null입니다. */
+    private final Node root;
+
+    BlockHeader(int identifier, int flags, int chars, Node root) {
+        this.identifier = identifier;
+        this.flags = flags;
+        this.chars = chars;
+        this.root = root;
+    }
+
+    public int getIdentifier() { return this.identifier; }
+
+    public int getFlags() { return this.flags; }
+
+    public int getChars() { return this.chars; }
+
+    public Node getRoot() { return this.root; }
+
+    /** 블록에 허프만 트리가 있는지 여부입니다. */
+    public boolean hasTable() { return this.root != null; }
+}
@@ -0,0 +1,106 @@
+package com.patulus.huffmancoding.decompressor;
+
+import com.patulus.huffmancoding.general.Node;
+import com.patulus.huffmancoding.general.Utf8;
+import com.patulus.huffmancoding.job.CorruptDataException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 허프만 트리를 배열로 펼친 복호화 표입니다.
+ * 내부 노드 i에서 비트 b를 읽으면 children[2 * i + b]로 이동하며, 값이 음수이면 ~값 번째 말단 노드에 도착한 것입니다.
+ * 말단 노드마다 UTF-8 바이트열을 미리 계산해 두므로, 복호화 중에는 문자 집합 변환을 하지 않습니다.
+ */
+public class DecodeTable {
+    /** 내부 노드의 자식 정보입니다. 루트 노드는 0번입니다. */
+    private final int[] children;
+    /** 말단 노드의 문자입니다. */
+    private final char[] symbols;
+    /** 말단 노드의 문자를 UTF-8로 부호화한 바이트열입니다. */
+    private final byte[][] symbolBytes;
+
+    private DecodeTable(int[] children, char[] symbols, byte[][] symbolBytes) {
+        this.children = children;
+        this.symbols = symbols;
+        this.symbolBytes = symbolBytes;
+    }
+
+    /** 허프만 트리로 복호화 표를 만듭니다. */
+    public static DecodeTable of(Node root) throws IOException {
+        if (root == null || root.isLeaf()) {
+            throw new CorruptDataException("파일 형식이 올바르지 않습니다: 허프만 트리가 비어 있습니다.");
+        }
+
+        List<Node> internals = new ArrayList<>();
+        List<Node> leaves = new ArrayList<>();
+        collect(root, internals, leaves);
+
+        int[] children = new int[internals.size() * 2];
+        char[] symbols = new char[leaves.size()];
+        byte[][] symbolBytes = new byte[leaves.size()][];
+
+        // 전위 순회 순서대로 번호를 매겼으므로, 같은 순서로 다시 순회하며 자식 번호를 채웁니다.
+        int[] counter = {0, 0};
+        fill(root, children, symbols, symbolBytes, counter);
+
+        return new DecodeTable(children, symbols, symbolBytes);
+    }
+
+    /** 내부 노드와 말단 노드를 전위 순회 순서로 모읍니다. */
+    private static void collect(Node node, List<Node> internals, List<Node> leaves) throws IOException {
+        if (node == null) {
+            throw new CorruptDataException("트리 탐색 중 오류 발생: 노드가 null입니다.");
+        }
+
+        if (node.isLeaf()) {
+            leaves.add(node);
+        } else {
+            internals.add(node);
+            collect(node.getLeft(), internals, leaves);
+            collect(node.getRight(), internals, leaves);
+        }
+    }
+
+    /** 노드에 번호를 매기고 자식 정보를 채웁니다. [0]은 다음 내부 노드 번호, [1]은 다음 말단 노드 번호입니다. */
+    private static int fill(Node node, int[] children, char[] symbols, byte[][] symbolBytes, int[] counter) {
+        if (node.isLeaf()) {
+            int leaf = counter[1]++;
+            symbols[leaf] = (char) node.getCharacter();
+            symbolBytes[leaf] = new byte[Utf8.length(symbols[leaf])];
+            Utf8.encode(symbolBytes[leaf], 0, symbols[leaf]);
+            return ~leaf;
+        }
+
+        int internal = counter[0]++;
+        children[internal * 2] = fill(node.getLeft(), children, symbols, symbolBytes, counter);
+        children[internal * 2 + 1] = fill(node.getRight(), children, symbols, symbolBytes, counter);
+        return internal;
+    }
+
+    public int[] getChildren() { return this.children; }
+
+    public char[] getSymbols() { return this.symbols; }
+
+    public byte[][] getSymbolBytes() { return this.symbolBytes; }
+
+    /** 문자에 해당하는 말단 노드의 번호를 반환합니다. 없으면 -1을 반환합니다. */
+    public int leafOf(char symbol) {
+        for (int leaf = 0; leaf < symbols.length; ++leaf) {
+            if (symbols[leaf] == symbol) {
+                return leaf;
+            }
+        }
+        return -1;
+    }
+
+    /** 말단 노드 하나의 UTF-8 바이트열 중 가장 긴 길이입니다. */
+    public int getMaxSymbolBytes() {
+        int max = 0;
+        for (byte[] bytes : symbolBytes) {
+            max = Math.max(max, bytes.length);
+        }
+        return max;
+    }
+}
@@ -1,37 +1,87 @@
 package com.patulus.huffmancoding.decompressor;
 
+import com.patulus.huffmancoding.general.ByteBufferInputStream;
+import com.patulus.huffmancoding.general.ByteBufferOutputStream;
+import com.patulus.huffmancoding.general.CountingInputStream;
+import com.patulus.huffmancoding.general.CountingOutputStream;
+import com.patulus.huffmancoding.general.HuffmanFormat;
 import com.patulus.huffmancoding.general.Node;
+import com.patulus.huffmancoding.general.Utf8;
+import com.patulus.huffmancoding.job.CorruptDataException;
+import com.patulus.huffmancoding.job.JobControl;
+import com.patulus.huffmancoding.job.Phase;
+import com.patulus.huffmancoding.pipeline.AsyncBlockInputStream;
+import com.patulus.huffmancoding.pipeline.AsyncBlockOutputStream;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedWriter;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 
 public class Decompressor {
     /** 헤더 정보 구분을 위한 의미 없는 바이트를 추가합니다. */
-    private static final int MEANINGLESS_CHARACTER = 255;
+    private static final int MEANINGLESS_CHARACTER = HuffmanFormat.SEPARATOR;
 
-    /** 읽을 파일과 쓸 파일을 지정합니다. */
+    /** 읽을 파일과 쓸 파일을 지정합니다. 스트림을 복원하면 null입니다. */
     final File src;
     final File out;
+    /** 로그에 표시할 이름입니다. */
+    private final String name;
 
-    /** 압축 전 파일의 문자 개수입니다. */
+    /** 압축 전 파일의 문자 개수입니다. 여러 블록으로 이루어진 파일이면 모든 블록의 합입니다. */
     int totalChars;
+    /** 지금 읽고 있는 블록의 문자 개수입니다. */
+    int blockChars;
+    /** 읽은 블록의 개수입니다. */
+    int blocks;
     /** 압축 해제에 걸린 시간입니다. */
     double elapsedTime;
 
+    /** (GUI) 미리 보기로 보관하는 문자 수의 상한입니다. */
+    public static final int PREVIEW_LIMIT = 1 << 20;
+    /** 출력 버퍼의 크기입니다. */
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
     /** 파일 압축을 위한 파일 읽기 클래스입니다. */
-    private BufferedInputStream reader;
-    /** 파일 압축을 위한 파일 쓰기 클래스입니다. */
-    private BufferedWriter writer;
-    /** (GUI) 압축 해제된 파일의 내용을 반환합니다. */
+    InputStream reader;
+    /** 파일 압축을 위한 파일 쓰기 클래스입니다. 복원한 문자의 UTF-8 바이트열을 그대로 씁니다. */
+    private OutputStream writer;
+    /** 읽고 쓴 바이트 수를 셉니다. 쓴 바이트 수는 스트림을 복원할 때만 셉니다. */
+    private CountingInputStream inCounter;
+    private CountingOutputStream outCounter;
+    /** (GUI) 압축 해제된 파일의 내용을 반환합니다. 미리 보기를 끄면 null입니다. */
     private StringBuilder decompressResult;
 
+    /** 진행 상황 전달, 취소, 제한 시간을 관리합니다. */
+    private JobControl control;
+    /** 본문을 복호화할 스레드 수와, 2 이상일 때 사용하는 병렬 복호화기입니다. */
+    private int parallelism;
+    private ParallelBodyDecoder parallelDecoder;
+
+    /** 지금 읽고 있는 블록의 확장 형식('E') 플래그입니다. 기본 형식이면 0입니다. */
+    int flags;
+    /** 지금 읽고 있는 저장 블록('R')의 바이트 수입니다. */
+    long storedBytes;
+    /** 지금 읽고 있는 블록의 동기점 색인입니다. 본문 바이트 수와 동기점별 비트 위치, 문자 서명이며, 색인이 없는 블록이면 bodyBytes는 -1입니다. */
+    long bodyBytes;
+    long[] syncOffsets;
+    long[] syncSignatures;
+
+    /** 지금 읽고 있는 블록의 복호화 표입니다. */
+    DecodeTable table;
+    /** 첫 번째 블록의 복호화 표와 탈출 코드 플래그입니다. 표를 재사용하는 블록('T')이 사용합니다. */
+    private DecodeTable firstTable;
+    private int firstFlags;
+
     /** 헤더 읽기를 위한 버퍼입니다. */
     private int readInfo;
     private int infoIdx;
@@ -40,30 +90,72 @@ public class Decompressor {
     Node root;
 
     public Decompressor(String path) throws FileNotFoundException {
-        this.src = new File(path);
-        this.out = new File(src.getPath().replace(".hfm", "-decompressed.txt"));
+        this(new File(path), new File(path.replace(".hfm", "-decompressed.txt")), new File(path).getName());
+
+        init();
+    }
+
+    /** 스트림의 압축 데이터를 복원해 주어진 스트림에 씁니다. 파일 시스템을 사용하지 않습니다. */
+    public Decompressor(InputStream in, OutputStream out) {
+        this(null, null, "<stream>");
+
+        this.inCounter = new CountingInputStream(new BufferedInputStream(in));
+        this.outCounter = new CountingOutputStream(new BufferedOutputStream(out));
+        this.reader = inCounter;
+        this.writer = outCounter;
+    }
+
+    private Decompressor(File src, File out, String name) {
+        this.src = src;
+        this.out = out;
+        this.name = name;
 
         this.totalChars = 0;
+        this.control = new JobControl();
+        this.parallelism = 1;
 
         this.decompressResult = new StringBuilder();
 
         this.readInfo = 0;
         this.infoIdx = 0;
-
-        init();
     }
 
-    /** 스트림을 엽니다. */
+    /**
+     * 스트림을 엽니다.
+     * 읽기와 쓰기는 각각 별도의 스레드가 링 버퍼를 통해 수행하므로, 복호화와 디스크 입출력이 겹쳐 진행됩니다.
+     */
     private void init() throws FileNotFoundException {
         try {
-            this.reader = new BufferedInputStream(new FileInputStream(this.src));
-            this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(this.out), StandardCharsets.UTF_8));
+            this.inCounter = new CountingInputStream(new AsyncBlockInputStream(new FileInputStream(this.src)));
+            this.reader = inCounter;
+            this.writer = new AsyncBlockOutputStream(new FileOutputStream(this.out));
         } catch (FileNotFoundException ex) {
             System.err.println("파일을 찾을 수 없습니다: " + ex.getMessage());
             throw ex;
         }
     }
 
+    /** (GUI) 복원한 내용의 미리 보기를 보관할지 지정합니다. 기본값은 보관입니다. */
+    public void setPreview(boolean preview) {
+        this.decompressResult = preview ? new StringBuilder() : null;
+    }
+
+    /**
+     * 본문을 복호화할 스레드 수를 지정합니다.
+     * 2 이상이면 하나의 비트 스트림으로 쓴 본문도 조각으로 나누어 추측으로 복호화한 뒤 이어 붙이므로, 기존 압축 파일을 그대로 빠르게 복원할 수 있습니다.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("스레드 수는 1 이상이어야 합니다.");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /** 진행 상황 전달, 취소, 제한 시간을 관리할 객체를 지정합니다. */
+    public void setJobControl(JobControl control) {
+        this.control = control;
+    }
+
     /** 스트림을 닫습니다. */
     public void close() throws IOException {
         try {
@@ -79,28 +171,179 @@ public class Decompressor {
     public void run() throws IOException {
         try {
             long startTime = System.nanoTime();
+            control.start();
 
-            // 식별자를 확인합니다.
-            int ch = reader.read();
-            if (ch != 'H') {
-                throw new IOException("압축된 파일이 아니거나 손상되었습니다.");
+            // 파일 끝까지 블록을 차례로 읽습니다. 덧붙이기로 만든 파일은 블록이 여러 개입니다.
+            int identifier;
+            while ((identifier = reader.read()) != -1) {
+                readBlock(identifier);
+            }
+            if (blocks == 0) {
+                throw new CorruptDataException("압축된 파일이 아니거나 손상되었습니다.");
             }
-
-            // 허프만 트리를 재구성합니다.
-            readHeader();
-
-            // 허프만 코드를 읽고, 문자로 변환해 파일로 씁니다.
-            readBody();
 
             writer.flush();
+            control.checkpoint(Phase.FINISHED, inCounter.getCount(), totalChars);
 
             long endTime = System.nanoTime();
 
             elapsedTime = ((double) endTime - startTime) / 1000000;
-            System.out.println(src.getName() + "의 복원 시간: " + elapsedTime);
+            System.out.println(name + "의 복원 시간: " + elapsedTime);
+            if (parallelDecoder != null) {
+                System.out.println(name + "의 병렬 복호화 중 경계를 맞추려고 차례로 복호화한 문자 수: " + parallelDecoder.getResyncedSymbols());
+            }
         } catch (IOException ex) {
             System.err.println("압축 해제 중 오류 발생: " + ex.getMessage());
+            throw ex;
+        } finally {
+            if (parallelDecoder != null) {
+                parallelDecoder.close();
+                parallelDecoder = null;
+            }
+        }
+    }
+
+    /** 블록 하나를 읽어 파일에 씁니다. */
+    private void readBlock(int identifier) throws IOException {
+        readBlockHeader(identifier);
+
+        // 허프만 코드를 읽고, 문자로 변환해 파일로 씁니다.
+        if (identifier == HuffmanFormat.STORED) {
+            copyStored();
+        } else if ((flags & HuffmanFormat.FLAG_INTERLEAVED) != 0) {
+            readInterleavedBody();
+        } else if (parallelism > 1) {
+            readParallelBody();
+        } else {
+            readBody();
+        }
+    }
+
+    /** 식별자에 따라 블록의 헤더를 읽습니다. */
+    void readBlockHeader(int identifier) throws IOException {
+        flags = 0;
+        bodyBytes = -1;
+        syncOffsets = null;
+        syncSignatures = null;
+
+        if (identifier == HuffmanFormat.CLASSIC || identifier == HuffmanFormat.EXTENDED) {
+            // 확장 형식이면 플래그를 읽습니다.
+            if (identifier == HuffmanFormat.EXTENDED) {
+                flags = reader.read();
+                if (flags == -1 || (flags & ~HuffmanFormat.SUPPORTED_FLAGS) != 0
+                        || (flags & (HuffmanFormat.FLAG_INTERLEAVED | HuffmanFormat.FLAG_SYNC_INDEX)) == (HuffmanFormat.FLAG_INTERLEAVED | HuffmanFormat.FLAG_SYNC_INDEX)) {
+                    throw new CorruptDataException("지원하지 않는 압축 형식입니다.");
+                }
+            }
+
+            // 허프만 트리를 재구성합니다.
+            readHeader();
+            if ((flags & HuffmanFormat.FLAG_SYNC_INDEX) != 0) {
+                readSyncIndex();
+            }
+            table = DecodeTable.of(root);
+        } else if (identifier == HuffmanFormat.STORED) {
+            // 저장 블록은 원본을 그대로 복사합니다.
+            readStoredHeader();
+            table = null;
+        } else if (identifier == HuffmanFormat.REUSE && firstTable != null) {
+            // 첫 번째 블록의 표를 그대로 사용합니다.
+            flags = firstFlags;
+            blockChars = readInt();
+            totalChars += blockChars;
+            if (reader.read() != MEANINGLESS_CHARACTER) {
+                throw new CorruptDataException("파일 형식이 올바르지 않습니다.");
+            }
+            table = firstTable;
+        } else {
+            throw new CorruptDataException("압축된 파일이 아니거나 손상되었습니다.");
+        }
+
+        if (blocks++ == 0) {
+            firstTable = table;
+            firstFlags = flags & HuffmanFormat.FLAG_ESCAPE;
+        }
+    }
+
+    /** 압축 파일의 첫 번째 블록의 헤더만 읽습니다. 본문은 읽지 않습니다. */
+    public static BlockHeader readFirstHeader(String path) throws IOException {
+        try (InputStream in = new FileInputStream(path)) {
+            Decompressor decompressor = new Decompressor(in, OutputStream.nullOutputStream());
+
+            int identifier = decompressor.reader.read();
+            decompressor.readBlockHeader(identifier);
+            return new BlockHeader(identifier, decompressor.flags, decompressor.blockChars,
+                    (identifier == HuffmanFormat.STORED) ? null : decompressor.root);
+        }
+    }
+
+    /**
+     * 첫 번째 블록의 헤더만 읽어 복원 결과의 크기 상한(바이트)을 계산합니다. 버퍼의 position은 바꾸지 않습니다.
+     * 메모리에서 압축한 데이터는 블록이 하나이므로 전체의 상한이 되며, 덧붙이기로 만든 데이터는 첫 번째 블록의 상한입니다.
+     * 헤더의 크기가 남은 데이터로 나타낼 수 없을 만큼 크면 상한을 믿을 수 없으므로 CorruptDataException을 던집니다.
+     */
+    public static long decompressedBound(ByteBuffer src) throws IOException {
+        Decompressor decompressor = new Decompressor(new ByteBufferInputStream(src.duplicate()), OutputStream.nullOutputStream());
+
+        int identifier = decompressor.reader.read();
+        decompressor.readBlockHeader(identifier);
+        if (identifier == HuffmanFormat.STORED) {
+            HuffmanFormat.checkStoredBytes(decompressor.storedBytes, src.remaining());
+            return decompressor.storedBytes;
+        }
+        HuffmanFormat.checkBlockChars(decompressor.blockChars, src.remaining());
+
+        // 탈출 코드로 쓴 문자는 표에 없으므로 문자 하나의 최대 바이트 수로 계산합니다.
+        int maxBytes = decompressor.table.getMaxSymbolBytes();
+        if ((decompressor.flags & HuffmanFormat.FLAG_ESCAPE) != 0) {
+            maxBytes = Math.max(maxBytes, Utf8.MAX_CHAR_BYTES);
+        }
+        return (long) decompressor.blockChars * maxBytes;
+    }
+
+    /** 메모리의 압축 데이터를 복원한 결과를 반환합니다. 결과 배열은 헤더로 계산한 상한 크기로 미리 할당합니다. */
+    public static byte[] decompress(byte[] data) throws IOException {
+        return decompress(ByteBuffer.wrap(data));
+    }
+
+    /** 메모리의 압축 데이터를 복원해 문자열로 반환합니다. */
+    public static String decompressString(byte[] data) throws IOException {
+        return new String(decompress(data), StandardCharsets.UTF_8);
+    }
+
+    /** 바이트 버퍼의 남은 압축 데이터를 복원한 결과를 반환합니다. 버퍼의 position은 limit까지 이동합니다. */
+    public static byte[] decompress(ByteBuffer src) throws IOException {
+        long bound = decompressedBound(src);
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(bound, Integer.MAX_VALUE - 8));
+
+        Decompressor decompressor = new Decompressor(new ByteBufferInputStream(src), out);
+        decompressor.setPreview(false);
+        try {
+            decompressor.run();
+        } finally {
+            decompressor.close();
         }
+
+        return out.toByteArray();
+    }
+
+    /**
+     * 바이트 버퍼의 남은 압축 데이터를 복원해 출력 버퍼에 쓰고, 쓴 바이트 수를 반환합니다.
+     * 필요한 공간은 decompressedBound()로 미리 알 수 있으며, 출력 버퍼의 공간이 부족하면 예외를 던집니다.
+     * 두 버퍼의 position은 각각 읽고 쓴 만큼 이동합니다.
+     */
+    public static int decompress(ByteBuffer src, ByteBuffer dst) throws IOException {
+        int start = dst.position();
+
+        Decompressor decompressor = new Decompressor(new ByteBufferInputStream(src), new ByteBufferOutputStream(dst));
+        decompressor.setPreview(false);
+        try {
+            decompressor.run();
+        } finally {
+            decompressor.close();
+        }
+
+        return dst.position() - start;
     }
 
     /** (테스트용!) 허프만 트리 헤더 정보를 점검합니다. */
@@ -127,33 +370,109 @@ public class Decompressor {
     private void readHeader() throws IOException {
         try {
             // 읽은 문자의 수를 파일에서 불러옵니다.
-            for (int i = 4; i > 0; --i) {
-                int byteRead = reader.read();
-                if (byteRead == -1) {
-                    throw new IOException("파일의 끝에 도달했습니다.");
-                }
-                totalChars += byteRead << (8 * (i - 1));
-            }
+            blockChars = readInt();
+            totalChars += blockChars;
             if (reader.read() != MEANINGLESS_CHARACTER) {
-                throw new IOException("파일 형식이 올바르지 않습니다.");
+                throw new CorruptDataException("파일 형식이 올바르지 않습니다.");
             }
 
             // 허프만 트리를 재구성합니다.
+            infoIdx = 0;
             root = readTreeNodeInfo();
             if (reader.read() != MEANINGLESS_CHARACTER) {
-                throw new IOException("파일 형식이 올바르지 않습니다.");
+                throw new CorruptDataException("파일 형식이 올바르지 않습니다.");
             }
 
             // 허프만 트리의 말단 노드의 문자 정보를 변경합니다.
             readTreeCharInfo(root);
             if (reader.read() != MEANINGLESS_CHARACTER) {
-                throw new IOException("파일 형식이 올바르지 않습니다.");
+                throw new CorruptDataException("파일 형식이 올바르지 않습니다.");
             }
         } catch (IOException ex) {
             System.err.println("헤더 읽기 중 오류 발생: " + ex.getMessage());
+            throw ex;
+        }
+    }
+
+    /**
+     * 헤더 끝의 동기점 색인을 읽습니다. 복원할 때는 사용하지 않지만, 본문 앞에 있으므로 읽어서 넘겨야 합니다.
+     * 동기점 개수는 문자 수로 정해지고 비트 위치는 본문 안에서 늘어나야 하므로, 그렇지 않으면 손상된 헤더입니다.
+     */
+    private void readSyncIndex() throws IOException {
+        bodyBytes = readInt() & 0xFFFFFFFFL;
+        int points = readInt();
+        if (points != HuffmanFormat.syncPoints(blockChars)) {
+            throw new CorruptDataException("파일 형식이 올바르지 않습니다: 동기점 개수가 잘못되었습니다.");
+        }
+
+        syncOffsets = new long[points];
+        syncSignatures = new long[points];
+        for (int i = 0; i < points; ++i) {
+            syncOffsets[i] = readLong();
+            syncSignatures[i] = readLong();
+            // 첫 번째 동기점은 본문의 시작이며, 문자는 하나에 1비트 이상이므로 동기점 사이는 SYNC_INTERVAL비트 이상입니다.
+            boolean valid = (i == 0) ? syncOffsets[i] == 0
+                    : syncOffsets[i] >= syncOffsets[i - 1] + HuffmanFormat.SYNC_INTERVAL && syncOffsets[i] < 8 * bodyBytes;
+            if (!valid) {
+                throw new CorruptDataException("파일 형식이 올바르지 않습니다: 동기점의 위치가 잘못되었습니다.");
+            }
+        }
+    }
+
+    /** 원본을 그대로 저장한 블록('R')의 헤더를 읽습니다. */
+    private void readStoredHeader() throws IOException {
+        blockChars = readInt();
+        totalChars += blockChars;
+        storedBytes = readInt() & 0xFFFFFFFFL;
+        if (reader.read() != MEANINGLESS_CHARACTER) {
+            throw new CorruptDataException("파일 형식이 올바르지 않습니다.");
+        }
+    }
+
+    /** 원본을 그대로 저장한 블록('R')의 본문을 파일에 씁니다. */
+    private void copyStored() throws IOException {
+        byte[] buffer = new byte[OUTPUT_BUFFER_SIZE];
+        ByteArrayOutputStream preview = (decompressResult != null) ? new ByteArrayOutputStream() : null;
+        long remaining = storedBytes;
+
+        while (remaining > 0) {
+            int n = reader.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (n == -1) {
+                throw new CorruptDataException("파일의 끝에 도달했습니다.");
+            }
+            writer.write(buffer, 0, n);
+            remaining -= n;
+            control.checkpoint(Phase.DECODING, inCounter.getCount(), 0);
+
+            // (GUI) 미리 보기는 앞부분만 보관합니다.
+            if (preview != null && decompressResult.length() + preview.size() < PREVIEW_LIMIT) {
+                preview.write(buffer, 0, Math.min(n, PREVIEW_LIMIT - decompressResult.length() - preview.size()));
+            }
+        }
+
+        if (preview != null) {
+            decompressResult.append(preview.toString(StandardCharsets.UTF_8));
         }
     }
 
+    /** 4바이트 정수를 읽습니다. */
+    int readInt() throws IOException {
+        int value = 0;
+        for (int i = 4; i > 0; --i) {
+            int byteRead = reader.read();
+            if (byteRead == -1) {
+                throw new CorruptDataException("파일의 끝에 도달했습니다.");
+            }
+            value |= byteRead << (8 * (i - 1));
+        }
+        return value;
+    }
+
+    /** 8바이트 정수를 읽습니다. */
+    long readLong() throws IOException {
+        return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+    }
+
     /** 트리 구조 정보를 불러와 허프만 트리를 재구성합니다. */
     private Node readTreeNodeInfo() throws IOException {
         // 비트 하나를 가져옵니다.
@@ -178,30 +497,12 @@ public class Decompressor {
                 // 바이트 단위로 가져옵니다.
                 int firstByte = reader.read();
                 if (firstByte == -1) {
-                    throw new IOException("파일의 끝에 도달했습니다.");
+                    throw new CorruptDataException("파일의 끝에 도달했습니다.");
                 }
                 if (firstByte == MEANINGLESS_CHARACTER) return;
 
                 // UTF-8 지원을 위해 추가로 읽을 바이트를 확인합니다.
-                int numBytes;
-                // 0xxxxxxx
-                if ((firstByte & 0x80) == 0) {
-                    numBytes = 1;
-                // 110xxxxx 10xxxxxx
-                // 앞 세 비트가 110이면 1바이트를 더 읽습니다.
-                } else if ((firstByte & 0xE0) == 0xC0) {
-                    numBytes = 2;
-                // 1110xxxx 10xxxxxx 10xxxxxx
-                // 앞 네 비트가 1110이면 2바이트를 더 읽습니다.
-                } else if ((firstByte & 0xF0) == 0xE0) {
-                    numBytes = 3;
-                // 11110xxx 10xxxxxx 10xxxxxx 10xxxxxx
-                // 앞 다섯 비트가 11110이면 3바이트를 더 읽습니다.
-                } else if ((firstByte & 0xF8) == 0xF0) {
-                    numBytes = 4;
-                } else {
-                    throw new IOException("잘못된 UTF-8 인코딩입니다.");
-                }
+                int numBytes = Utf8.sequenceLength(firstByte);
 
                 byte[] charBytes = new byte[numBytes];
                 charBytes[0] = (byte) firstByte;
@@ -209,14 +510,13 @@ public class Decompressor {
                 for (int i = 1; i < numBytes; i++) {
                     int nextByte = reader.read();
                     if (nextByte == -1) {
-                        throw new IOException("파일의 끝에 도달했습니다.");
+                        throw new CorruptDataException("파일의 끝에 도달했습니다.");
                     }
                     charBytes[i] = (byte) nextByte;
                 }
 
                 // 읽은 바이트를 하나의 문자로 변환 후 노드를 갱신합니다.
-                String character = new String(charBytes, StandardCharsets.UTF_8);
-                node.setCharacter(character.charAt(0));
+                node.setCharacter(Utf8.decode(charBytes, 0, numBytes));
             // 말단 노드를 찾아 여정을 떠납니다...
             } else {
                 readTreeCharInfo(node.getLeft());
@@ -239,42 +539,229 @@ public class Decompressor {
     }
 
     /** 허프만 코드에 해당하는 문자를 읽어 파일에 씁니다. */
-    private void readBody() {
+    private void readBody() throws IOException {
         try {
-            Node node = root;
+            int[] children = table.getChildren();
+            char[] symbols = table.getSymbols();
+            byte[][] symbolBytes = table.getSymbolBytes();
+
+            int escapeLeaf = escapeLeaf(table);
+
+            byte[] outBuffer = new byte[OUTPUT_BUFFER_SIZE];
+            int outIdx = 0;
+            int outLimit = OUTPUT_BUFFER_SIZE - Math.max(table.getMaxSymbolBytes(), Utf8.MAX_CHAR_BYTES);
+
+            int state = 0;
             int readChars = 0;
             int readByte;
+            // 탈출 코드 뒤에 남은 문자 값의 비트 수와 지금까지 읽은 값입니다.
+            int escapeRemaining = 0;
+            int escapeValue = 0;
+
+            long readBytes = 0;
 
-            while (readChars < totalChars && (readByte = reader.read()) != -1) {
+            while (readChars < blockChars && (readByte = reader.read()) != -1) {
+                if ((++readBytes & (JobControl.CHECK_INTERVAL - 1)) == 0) {
+                    control.checkpoint(Phase.DECODING, inCounter.getCount(), totalChars - blockChars + readChars);
+                }
                 for (int bitIdx = 7; bitIdx >= 0; --bitIdx) {
-                    // 비트를 읽습니다.
-                    int bit = (readByte >> bitIdx) & 1;
-                    // 0이면 왼쪽, 1이면 오른쪽 노드를 탐색합니다.
-                    node = (bit == 0) ? node.getLeft() : node.getRight();
+                    char symbol;
 
-                    if (node == null) {
-                        throw new IOException("트리 탐색 중 오류 발생: 노드가 null입니다.");
-                    }
+                    if (escapeRemaining > 0) {
+                        // 탈출 코드 뒤의 문자 값을 모읍니다.
+                        escapeValue = (escapeValue << 1) | ((readByte >> bitIdx) & 1);
+                        if (--escapeRemaining > 0) {
+                            continue;
+                        }
 
-                    // 말단 노드에 도착하면 파일에 씁니다.
-                    if (readChars <= totalChars && node.isLeaf()) {
-                        writer.write(node.getCharacter());
-                        decompressResult.append((char) node.getCharacter());
-                        ++readChars;
+                        symbol = (char) escapeValue;
+                        outIdx = Utf8.encode(outBuffer, outIdx, symbol);
+                    } else {
+                        // 비트를 읽어 다음 노드로 이동합니다. (0이면 왼쪽, 1이면 오른쪽)
+                        int next = children[(state << 1) | ((readByte >> bitIdx) & 1)];
+                        if (next >= 0) {
+                            state = next;
+                            continue;
+                        }
 
-                        if (readChars >= totalChars) {
-                            break;
+                        // 탈출 코드이면 다음 16비트를 문자 값으로 읽습니다.
+                        int leaf = ~next;
+                        state = 0;
+                        if (leaf == escapeLeaf) {
+                            escapeRemaining = HuffmanFormat.ESCAPE_BITS;
+                            escapeValue = 0;
+                            continue;
                         }
 
-                        // 노드를 루트 노드로 초기화하고 다음 허프만 코드를 읽습니다.
-                        node = root;
+                        // 말단 노드에 도착하면 미리 계산한 UTF-8 바이트열을 버퍼에 씁니다.
+                        symbol = symbols[leaf];
+                        outIdx = putBytes(outBuffer, outIdx, symbolBytes[leaf]);
+                    }
+
+                    if (outIdx > outLimit) {
+                        writer.write(outBuffer, 0, outIdx);
+                        outIdx = 0;
+                    }
+
+                    if (decompressResult != null && decompressResult.length() < PREVIEW_LIMIT) {
+                        decompressResult.append(symbol);
+                    }
+                    ++readChars;
+
+                    if (readChars >= blockChars) {
+                        break;
                     }
                 }
             }
+
+            writer.write(outBuffer, 0, outIdx);
+            if (readChars < blockChars) {
+                throw new CorruptDataException("파일의 끝에 도달했습니다: " + blockChars + "자 중 " + readChars + "자만 복원했습니다.");
+            }
+        } catch (IOException ex) {
+            System.err.println("본문 읽기 중 오류 발생: " + ex.getMessage());
+            throw ex;
+        }
+    }
+
+    /** 여러 스레드가 본문을 나누어 복호화합니다. 결과는 readBody()와 같습니다. */
+    private void readParallelBody() throws IOException {
+        try {
+            if (parallelDecoder == null) {
+                parallelDecoder = new ParallelBodyDecoder(parallelism);
+            }
+            // 본문 뒤에 더 읽은 바이트를 다음 블록을 위해 되돌려 놓을 수 있어야 합니다.
+            if (!(reader instanceof PushbackInputStream)) {
+                reader = new PushbackInputStream(reader, ParallelBodyDecoder.windowSize(parallelism));
+            }
+
+            parallelDecoder.decode(table, escapeLeaf(table), blockChars, (PushbackInputStream) reader, inCounter,
+                    writer, decompressResult, control, totalChars - blockChars);
         } catch (IOException ex) {
             System.err.println("본문 읽기 중 오류 발생: " + ex.getMessage());
+            throw ex;
+        }
+    }
+
+    /**
+     * 여러 비트 스트림으로 나뉜 본문을 읽어 파일에 씁니다.
+     * i번째 문자는 (i % 스트림 수)번째 스트림에 있으므로, 스트림마다 문자 하나씩 번갈아 복호화합니다.
+     * 각 스트림의 복호화는 서로 의존하지 않아 CPU가 여러 스트림의 트리 탐색을 겹쳐 실행할 수 있습니다.
+     */
+    private void readInterleavedBody() throws IOException {
+        // 스트림 표를 읽습니다.
+        int streamCount = reader.read();
+        if (streamCount < 1 || streamCount > HuffmanFormat.MAX_STREAMS) {
+            throw new CorruptDataException("파일 형식이 올바르지 않습니다: 스트림 개수가 잘못되었습니다.");
+        }
+
+        int[] bitPos = new int[streamCount];
+        int[] bitEnd = new int[streamCount];
+        int totalBytes = 0;
+        for (int s = 0; s < streamCount; ++s) {
+            int size = 0;
+            for (int i = 4; i > 0; --i) {
+                int byteRead = reader.read();
+                if (byteRead == -1) {
+                    throw new CorruptDataException("파일의 끝에 도달했습니다.");
+                }
+                size += byteRead << (8 * (i - 1));
+            }
+            if (size < 0 || totalBytes + size < totalBytes || totalBytes + size > Integer.MAX_VALUE / 8) {
+                throw new CorruptDataException("파일 형식이 올바르지 않습니다: 스트림 크기가 잘못되었습니다.");
+            }
+
+            bitPos[s] = totalBytes * 8;
+            totalBytes += size;
+            bitEnd[s] = totalBytes * 8;
+        }
+
+        // 모든 스트림을 메모리로 읽습니다.
+        byte[] body = reader.readNBytes(totalBytes);
+        if (body.length < totalBytes) {
+            throw new CorruptDataException("파일의 끝에 도달했습니다.");
+        }
+
+        int[] children = table.getChildren();
+        char[] symbols = table.getSymbols();
+        byte[][] symbolBytes = table.getSymbolBytes();
+
+        int escapeLeaf = escapeLeaf(table);
+
+        byte[] outBuffer = new byte[OUTPUT_BUFFER_SIZE];
+        int outIdx = 0;
+        int outLimit = OUTPUT_BUFFER_SIZE - Math.max(table.getMaxSymbolBytes(), Utf8.MAX_CHAR_BYTES) * streamCount;
+
+        int readChars = 0;
+        while (readChars < blockChars) {
+            // 스트림마다 문자 하나씩 복호화합니다.
+            for (int s = 0; s < streamCount && readChars < blockChars; ++s) {
+                int pos = bitPos[s];
+                int end = bitEnd[s];
+                int next = 0;
+
+                do {
+                    if (pos >= end) {
+                        throw new CorruptDataException("본문 읽기 중 오류 발생: 스트림의 끝에 도달했습니다.");
+                    }
+                    int bit = (body[pos >>> 3] >> (7 - (pos & 7))) & 1;
+                    ++pos;
+                    next = children[(next << 1) | bit];
+                } while (next >= 0);
+
+                int leaf = ~next;
+                char symbol;
+                if (leaf == escapeLeaf) {
+                    // 탈출 코드이면 다음 16비트를 문자 값으로 읽습니다.
+                    if (pos + HuffmanFormat.ESCAPE_BITS > end) {
+                        throw new CorruptDataException("본문 읽기 중 오류 발생: 스트림의 끝에 도달했습니다.");
+                    }
+                    int value = 0;
+                    for (int i = 0; i < HuffmanFormat.ESCAPE_BITS; ++i, ++pos) {
+                        value = (value << 1) | ((body[pos >>> 3] >> (7 - (pos & 7))) & 1);
+                    }
+                    symbol = (char) value;
+                    outIdx = Utf8.encode(outBuffer, outIdx, symbol);
+                } else {
+                    symbol = symbols[leaf];
+                    outIdx = putBytes(outBuffer, outIdx, symbolBytes[leaf]);
+                }
+                bitPos[s] = pos;
+
+                if (decompressResult != null && decompressResult.length() < PREVIEW_LIMIT) {
+                    decompressResult.append(symbol);
+                }
+                ++readChars;
+            }
+
+            if (outIdx > outLimit) {
+                writer.write(outBuffer, 0, outIdx);
+                outIdx = 0;
+                control.checkpoint(Phase.DECODING, inCounter.getCount(), totalChars - blockChars + readChars);
+            }
+        }
+
+        writer.write(outBuffer, 0, outIdx);
+    }
+
+    /** 탈출 코드를 사용하는 파일이면 탈출 코드의 말단 노드 번호를, 아니면 -1을 반환합니다. */
+    int escapeLeaf(DecodeTable table) {
+        return ((flags & HuffmanFormat.FLAG_ESCAPE) != 0) ? table.leafOf(HuffmanFormat.ESCAPE_CHARACTER) : -1;
+    }
+
+    /** 바이트열을 출력 버퍼에 복사하고 다음 위치를 반환합니다. */
+    private static int putBytes(byte[] outBuffer, int outIdx, byte[] bytes) {
+        for (byte b : bytes) {
+            outBuffer[outIdx++] = b;
         }
+        return outIdx;
     }
 
-    public String getResult() { return this.decompressResult.toString(); }
+    /** 복원 전 데이터의 용량을 반환합니다. */
+    long getSrcVolume() { return (src != null) ? src.length() : inCounter.getCount(); }
+
+    /** 복원 후 데이터의 용량을 반환합니다. */
+    long getOutVolume() { return (out != null) ? out.length() : outCounter.getCount(); }
+
+    public String getResult() { return (decompressResult != null) ? this.decompressResult.toString() : ""; }
 }
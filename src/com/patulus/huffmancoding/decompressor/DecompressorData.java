@@ -7,12 +7,16 @@ public class DecompressorData {
         return decompressor.totalChars;
     }
 
+    public static int getBlocks(Decompressor decompressor) {
+        return decompressor.blocks;
+    }
+
     public static long getSrcVolume(Decompressor decompressor) {
-        return decompressor.src.length();
+        return decompressor.getSrcVolume();
     }
 
     public static long getOutVolume(Decompressor decompressor) {
-        return decompressor.out.length();
+        return decompressor.getOutVolume();
     }
 
     public static double getElapsedTime(Decompressor decompressor) {
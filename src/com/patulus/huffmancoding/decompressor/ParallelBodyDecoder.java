@@ -0,0 +1,311 @@
+package com.patulus.huffmancoding.decompressor;
+
+import com.patulus.huffmancoding.general.CountingInputStream;
+import com.patulus.huffmancoding.general.HuffmanFormat;
+import com.patulus.huffmancoding.general.Utf8;
+import com.patulus.huffmancoding.job.CodecException;
+import com.patulus.huffmancoding.job.CorruptDataException;
+import com.patulus.huffmancoding.job.JobControl;
+import com.patulus.huffmancoding.job.Phase;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 하나의 비트 스트림으로 쓴 본문을 여러 스레드가 추측으로 나누어 복호화합니다.
+ * 본문에는 문자 경계 정보가 없으므로, 각 스레드는 자기 조각의 첫 바이트가 문자의 시작이라고 가정하고 복호화하며 문자가 시작한 비트 위치를 기록합니다.
+ * 허프만 코드는 잘못된 위치에서 시작해도 곧 실제 문자 경계와 맞춰지는 경향이 있으므로, 앞 조각의 실제 복호화가 끝난 위치에서 시작해
+ * 이 조각의 기록과 같은 위치가 나올 때까지만 차례로 복호화하고, 그 뒤는 이 조각의 결과를 그대로 이어 붙입니다.
+ */
+class ParallelBodyDecoder implements AutoCloseable {
+    /** 스레드 하나가 창마다 맡는 바이트 수입니다. */
+    static final int CHUNK_BYTES = 1 << 18;
+    /** 출력 버퍼의 크기입니다. */
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    /** 복호화할 비트가 모자라 문자를 끝까지 읽지 못했음을 나타냅니다. */
+    private static final int INCOMPLETE = -1;
+
+    private final int parallelism;
+    private final ExecutorService executor;
+
+    /** 읽은 바이트를 담는 창입니다. 앞쪽에는 이전 창에서 복호화하지 못한 바이트가 남아 있을 수 있습니다. */
+    private final byte[] window;
+    private int length;
+    /** 조각별 추측 복호화 결과와 시작 비트 위치입니다. */
+    private final Chunk[] chunks;
+    private final int[] bounds;
+    private final byte[] outBuffer;
+
+    /** 지금 복호화하는 블록의 복호화 표입니다. */
+    private int[] children;
+    private char[] symbols;
+    private byte[][] symbolBytes;
+    private int escapeLeaf;
+
+    /** 실제 문자 경계와 맞춰지기 전까지 차례로 복호화한 문자 수입니다. */
+    private long resyncedSymbols;
+
+    /** 조각 하나의 추측 복호화 결과입니다. */
+    private static final class Chunk {
+        /** 문자가 시작한 비트 위치와 문자입니다. 문자는 말단 노드 번호이며, 탈출 코드로 쓴 문자는 ~문자 값입니다. */
+        int[] starts = new int[1024];
+        int[] items = new int[1024];
+        int count;
+        /** 마지막 문자가 끝난 비트 위치입니다. 창이 끝나 문자를 끝까지 읽지 못했으면 그 문자가 시작한 위치입니다. */
+        int endBit;
+        boolean complete;
+
+        void add(int start, int item) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, 2 * count);
+                items = Arrays.copyOf(items, 2 * count);
+            }
+            starts[count] = start;
+            items[count++] = item;
+        }
+    }
+
+    ParallelBodyDecoder(int parallelism) {
+        this.parallelism = parallelism;
+        this.executor = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "hfm-decoder");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.window = new byte[windowSize(parallelism)];
+        this.chunks = new Chunk[parallelism];
+        for (int i = 0; i < parallelism; ++i) {
+            chunks[i] = new Chunk();
+        }
+        this.bounds = new int[parallelism + 1];
+        this.outBuffer = new byte[OUTPUT_BUFFER_SIZE];
+    }
+
+    /** 창의 크기입니다. 블록이 끝난 뒤 남은 바이트를 되돌려 놓으므로, 입력 스트림은 이만큼 되돌릴 수 있어야 합니다. */
+    static int windowSize(int parallelism) {
+        return parallelism * CHUNK_BYTES;
+    }
+
+    /**
+     * 블록의 본문에서 문자 blockChars개를 복원해 출력 스트림에 씁니다.
+     * 본문 뒤에 읽은 바이트는 다음 블록을 위해 입력 스트림에 되돌려 놓습니다.
+     *
+     * @param preview (GUI) 복원한 문자를 덧붙일 미리 보기입니다. 미리 보기를 끄면 null입니다.
+     */
+    void decode(DecodeTable table, int escapeLeaf, int blockChars, PushbackInputStream in, CountingInputStream counter,
+                OutputStream out, StringBuilder preview, JobControl control, long symbolBase) throws IOException {
+        this.children = table.getChildren();
+        this.symbols = table.getSymbols();
+        this.symbolBytes = table.getSymbolBytes();
+        this.escapeLeaf = escapeLeaf;
+
+        int produced = 0;
+        int startBit = 0;
+        int outIdx = 0;
+        int outLimit = OUTPUT_BUFFER_SIZE - Math.max(table.getMaxSymbolBytes(), Utf8.MAX_CHAR_BYTES);
+        length = 0;
+
+        while (produced < blockChars) {
+            // 이전 창에서 남은 바이트 뒤에 창을 채웁니다. 창을 다 채우지 못했으면 파일의 끝입니다.
+            int n;
+            while (length < window.length && (n = in.read(window, length, window.length - length)) != -1) {
+                length += n;
+            }
+            boolean eof = length < window.length;
+
+            // 창을 바이트 경계에서 조각으로 나누고, 조각마다 추측으로 복호화합니다.
+            bounds[0] = startBit;
+            for (int i = 1; i < parallelism; ++i) {
+                bounds[i] = Math.max(startBit, (int) ((long) length * i / parallelism) * 8);
+            }
+            bounds[parallelism] = length * 8;
+
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < parallelism; ++i) {
+                int chunk = i;
+                tasks.add(() -> {
+                    decodeRange(chunks[chunk], bounds[chunk], bounds[chunk + 1]);
+                    return null;
+                });
+            }
+            invokeAll(tasks);
+
+            // 실제 문자 경계를 따라가며 조각의 결과를 이어 붙입니다.
+            int bit = startBit;
+            boolean windowEnded = false;
+            for (int i = 0; i < parallelism && produced < blockChars && !windowEnded; ++i) {
+                Chunk chunk = chunks[i];
+                if (bit >= bounds[i + 1]) continue;
+
+                // 이 조각의 기록과 같은 경계가 나올 때까지 차례로 복호화합니다.
+                int j = firstStartAtOrAfter(chunk, bit);
+                while (produced < blockChars && bit < bounds[i + 1] && (j == chunk.count || chunk.starts[j] != bit)) {
+                    long result = decodeSymbol(bit);
+                    int end = (int) result;
+                    if (end == INCOMPLETE) {
+                        windowEnded = true;
+                        break;
+                    }
+
+                    outIdx = emit((int) (result >> 32), outIdx, preview);
+                    if (outIdx > outLimit) {
+                        out.write(outBuffer, 0, outIdx);
+                        outIdx = 0;
+                    }
+                    ++produced;
+                    ++resyncedSymbols;
+                    bit = end;
+                    while (j < chunk.count && chunk.starts[j] < bit) ++j;
+                }
+                if (windowEnded || produced >= blockChars || bit >= bounds[i + 1]) continue;
+
+                // 경계가 맞춰진 뒤로는 이 조각의 결과가 실제 복호화 결과와 같습니다.
+                for (; j < chunk.count && produced < blockChars; ++j) {
+                    outIdx = emit(chunk.items[j], outIdx, preview);
+                    if (outIdx > outLimit) {
+                        out.write(outBuffer, 0, outIdx);
+                        outIdx = 0;
+                    }
+                    ++produced;
+                }
+                if (produced >= blockChars) {
+                    bit = (j < chunk.count) ? chunk.starts[j] : chunk.endBit;
+                } else {
+                    bit = chunk.endBit;
+                    windowEnded = !chunk.complete;
+                }
+            }
+
+            if (produced >= blockChars) {
+                // 본문 뒤의 바이트는 다음 블록의 것이므로 되돌려 놓습니다.
+                int used = (bit + 7) >>> 3;
+                in.unread(window, used, length - used);
+                break;
+            }
+            if (eof) {
+                out.write(outBuffer, 0, outIdx);
+                throw new CorruptDataException("파일의 끝에 도달했습니다: " + blockChars + "자 중 " + produced + "자만 복원했습니다.");
+            }
+
+            // 복호화하지 못한 바이트를 창의 앞으로 옮깁니다.
+            int keep = bit >>> 3;
+            System.arraycopy(window, keep, window, 0, length - keep);
+            length -= keep;
+            startBit = bit & 7;
+
+            control.checkpoint(Phase.DECODING, counter.getCount(), symbolBase + produced);
+        }
+
+        out.write(outBuffer, 0, outIdx);
+    }
+
+    /** 조각의 시작 위치부터 추측으로 복호화해, 조각 안에서 시작하는 문자를 모두 기록합니다. */
+    private void decodeRange(Chunk chunk, int from, int to) {
+        chunk.count = 0;
+        chunk.complete = true;
+
+        int bit = from;
+        while (bit < to) {
+            long result = decodeSymbol(bit);
+            int end = (int) result;
+            if (end == INCOMPLETE) {
+                chunk.complete = false;
+                break;
+            }
+
+            chunk.add(bit, (int) (result >> 32));
+            bit = end;
+        }
+        chunk.endBit = bit;
+    }
+
+    /**
+     * 비트 위치에서 문자 하나를 복호화합니다.
+     * 상위 32비트에 문자를, 하위 32비트에 문자가 끝난 비트 위치를 담아 반환합니다. 창이 끝나 다 읽지 못했으면 하위 32비트가 INCOMPLETE입니다.
+     */
+    private long decodeSymbol(int bit) {
+        int limit = length * 8;
+        int state = 0;
+        int next;
+
+        // 비트를 읽어 다음 노드로 이동합니다. (0이면 왼쪽, 1이면 오른쪽)
+        do {
+            if (bit >= limit) {
+                return INCOMPLETE & 0xFFFFFFFFL;
+            }
+            next = children[(state << 1) | ((window[bit >>> 3] >> (7 - (bit & 7))) & 1)];
+            ++bit;
+            state = next;
+        } while (next >= 0);
+
+        int item = ~next;
+        if (item == escapeLeaf) {
+            // 탈출 코드이면 다음 16비트를 문자 값으로 읽습니다.
+            if (bit + HuffmanFormat.ESCAPE_BITS > limit) {
+                return INCOMPLETE & 0xFFFFFFFFL;
+            }
+            int value = 0;
+            for (int i = 0; i < HuffmanFormat.ESCAPE_BITS; ++i, ++bit) {
+                value = (value << 1) | ((window[bit >>> 3] >> (7 - (bit & 7))) & 1);
+            }
+            item = ~value;
+        }
+
+        return ((long) item << 32) | (bit & 0xFFFFFFFFL);
+    }
+
+    /** 문자 하나의 UTF-8 바이트열을 출력 버퍼에 쓰고 다음 위치를 반환합니다. */
+    private int emit(int item, int outIdx, StringBuilder preview) {
+        char symbol;
+        if (item >= 0) {
+            symbol = symbols[item];
+            for (byte b : symbolBytes[item]) {
+                outBuffer[outIdx++] = b;
+            }
+        } else {
+            symbol = (char) ~item;
+            outIdx = Utf8.encode(outBuffer, outIdx, symbol);
+        }
+        if (preview != null && preview.length() < Decompressor.PREVIEW_LIMIT) {
+            preview.append(symbol);
+        }
+        return outIdx;
+    }
+
+    /** 조각의 기록 중 bit 이상인 첫 번째 문자의 번호를 찾습니다. */
+    private static int firstStartAtOrAfter(Chunk chunk, int bit) {
+        int idx = Arrays.binarySearch(chunk.starts, 0, chunk.count, bit);
+        return (idx >= 0) ? idx : -idx - 1;
+    }
+
+    private void invokeAll(List<Callable<Void>> tasks) throws IOException {
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CodecException("병렬 복호화 중 중단되었습니다.");
+        } catch (ExecutionException ex) {
+            throw new CodecException("병렬 복호화 중 오류가 발생했습니다: " + ex.getCause());
+        }
+    }
+
+    /** 실제 문자 경계와 맞춰지기 전까지 차례로 복호화한 문자 수입니다. 작을수록 추측이 잘 맞은 것입니다. */
+    long getResyncedSymbols() { return this.resyncedSymbols; }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
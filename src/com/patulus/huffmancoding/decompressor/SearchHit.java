@@ -0,0 +1,23 @@
+package com.patulus.huffmancoding.decompressor;
+
+/** 압축 파일에서 찾은 검색어의 위치와, 그 위치가 속한 줄입니다. */
+public class SearchHit {
+    /** 복원한 내용에서 검색어가 시작하는 문자 위치입니다. */
+    private final long offset;
+    /** 검색어가 있는 줄입니다. 줄바꿈 문자는 포함하지 않으며, 아주 긴 줄은 검색어 주변만 남기고 잘린 쪽에 "..."을 붙입니다. */
+    private final String line;
+
+    SearchHit(long offset, String line) {
+        this.offset = offset;
+        this.line = line;
+    }
+
+    public long getOffset() { return this.offset; }
+
+    public String getLine() { return this.line; }
+
+    @Override
+    public String toString() {
+        return offset + ": " + line;
+    }
+}
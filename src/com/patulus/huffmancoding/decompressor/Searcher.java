@@ -0,0 +1,525 @@
+package com.patulus.huffmancoding.decompressor;
+
+import com.patulus.huffmancoding.general.HuffmanFormat;
+import com.patulus.huffmancoding.job.CorruptDataException;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 압축 파일을 복원하지 않고 문자열을 찾습니다.
+ * 블록마다 헤더의 표를 먼저 확인해, 검색어의 문자 중 표에 없는 문자가 있으면 그 블록에는 검색어가 없으므로 건너뜁니다.
+ * 건너뛸 블록 중 크기를 아는 본문(동기점 색인이 있거나 여러 스트림으로 나눈 본문)은 읽지 않고 넘깁니다.
+ * 색인이 없는 본문(메모리에서 압축했거나 표를 재사용한 블록, 탈출 코드를 쓰는 블록)은 끝을 찾으려면 트리를 따라가야 하므로,
+ * 건너뛰어도 본문을 모두 읽고 문자 비교만 하지 않습니다.
+ * 동기점 색인이 있는 블록은 구간별 문자 서명으로 검색어가 있을 수 있는 구간을 고르고, 그 앞뒤 구간까지만 동기점에서 복호화를 시작해 검색합니다.
+ * 표가 없는 저장 블록('R')과 검색어가 있을 수 있는 구간만 복호화하며, 복원한 내용을 파일이나 UTF-8 바이트열로 만들지 않고 문자 단위로 바로 비교합니다.
+ *
+ * 검색은 줄 단위이며, 블록은 각각 따로 압축한 원본이므로 블록 경계를 넘는 일치는 찾지 않습니다.
+ */
+public class Searcher {
+    /** 저장 블록을 읽을 때 한 번에 읽는 바이트 수입니다. */
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /** 로그에 표시할 이름입니다. */
+    private final String name;
+    /** 블록 헤더를 읽는 데 사용하는 복원기입니다. 본문은 직접 읽습니다. */
+    private final Decompressor decompressor;
+
+    /** 검색한 블록과 건너뛴 블록의 개수, 동기점 색인으로 건너뛴 구간의 개수입니다. */
+    private int searchedBlocks;
+    private int skippedBlocks;
+    private int skippedSegments;
+    /** 검색에 걸린 시간입니다. */
+    private double elapsedTime;
+
+    public Searcher(String path) throws FileNotFoundException {
+        this.name = new File(path).getName();
+
+        InputStream in;
+        try {
+            in = new BufferedInputStream(new FileInputStream(path));
+        } catch (FileNotFoundException ex) {
+            System.err.println("파일을 찾을 수 없습니다: " + ex.getMessage());
+            throw ex;
+        }
+        this.decompressor = new Decompressor(in, OutputStream.nullOutputStream());
+        this.decompressor.setPreview(false);
+    }
+
+    /** 파일을 닫습니다. */
+    public void close() throws IOException {
+        decompressor.close();
+    }
+
+    /**
+     * 검색어가 나오는 위치를 모두 찾습니다. 한 줄에 여러 번 나오면 위치마다 결과를 반환합니다.
+     * 검색어에는 줄바꿈 문자를 넣을 수 없습니다.
+     */
+    public List<SearchHit> search(String pattern) throws IOException {
+        if (pattern.isEmpty() || pattern.indexOf('\n') != -1) {
+            throw new IllegalArgumentException("검색어는 비어 있지 않고 줄바꿈 문자가 없어야 합니다.");
+        }
+
+        try {
+            long startTime = System.nanoTime();
+
+            LineMatcher matcher = new LineMatcher(pattern);
+            InputStream reader = decompressor.reader;
+
+            int identifier;
+            while ((identifier = reader.read()) != -1) {
+                decompressor.readBlockHeader(identifier);
+                matcher.startBlock(decompressor.totalChars - decompressor.blockChars);
+
+                if (identifier == HuffmanFormat.STORED) {
+                    ++searchedBlocks;
+                    searchStored(matcher);
+                } else if (!mayContain(pattern)) {
+                    ++skippedBlocks;
+                    skipBody();
+                } else if ((decompressor.flags & HuffmanFormat.FLAG_INTERLEAVED) != 0) {
+                    ++searchedBlocks;
+                    searchInterleavedBody(matcher);
+                } else if (decompressor.syncOffsets != null && pattern.length() <= HuffmanFormat.SYNC_INTERVAL) {
+                    ++searchedBlocks;
+                    searchIndexedBody(matcher, pattern);
+                } else {
+                    ++searchedBlocks;
+                    searchBody(matcher);
+                }
+
+                matcher.endLine();
+            }
+            if (decompressor.blocks == 0) {
+                throw new CorruptDataException("압축된 파일이 아니거나 손상되었습니다.");
+            }
+
+            elapsedTime = ((double) System.nanoTime() - startTime) / 1000000;
+            System.out.println(name + "의 검색 시간: " + elapsedTime + " (블록 " + searchedBlocks + "개 검색, " + skippedBlocks + "개 건너뜀, "
+                    + "구간 " + skippedSegments + "개 건너뜀)");
+
+            return matcher.hits;
+        } catch (IOException ex) {
+            System.err.println("검색 중 오류 발생: " + ex.getMessage());
+            throw ex;
+        }
+    }
+
+    /** 지금 블록에 검색어가 있을 수 있는지 표로 확인합니다. 탈출 코드를 쓰는 블록은 표에 없는 문자도 있을 수 있습니다. */
+    private boolean mayContain(String pattern) {
+        if ((decompressor.flags & HuffmanFormat.FLAG_ESCAPE) != 0) {
+            return true;
+        }
+        for (int i = 0; i < pattern.length(); ++i) {
+            if (decompressor.table.leafOf(pattern.charAt(i)) == -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** 검색어가 없는 블록의 본문을 건너뜁니다. 크기를 아는 본문은 읽지 않고, 그 밖의 본문은 끝을 찾도록 트리를 따라가며 문자 수를 셉니다. */
+    private void skipBody() throws IOException {
+        if ((decompressor.flags & HuffmanFormat.FLAG_INTERLEAVED) != 0) {
+            decompressor.reader.skipNBytes(readStreamTable(readStreamCount(), null, null));
+        } else if (decompressor.bodyBytes >= 0) {
+            decompressor.reader.skipNBytes(decompressor.bodyBytes);
+        } else {
+            searchBody(null);
+        }
+    }
+
+    /**
+     * 동기점 색인이 있는 본문에서 검색어가 있을 수 있는 구간만 복호화하며 검색합니다.
+     * 검색어는 SYNC_INTERVAL자 이하이므로 일치는 이웃한 두 구간 안에 있으며, 그 두 구간의 문자 서명을 합치면 검색어의 서명을 포함합니다.
+     * 그런 구간과 앞뒤 한 구간씩을 복호화하므로, 결과 줄의 앞뒤 LINE_LIMIT자도 모두 복호화한 구간 안에 있습니다.
+     */
+    private void searchIndexedBody(LineMatcher matcher, String pattern) throws IOException {
+        long[] offsets = decompressor.syncOffsets;
+        long[] signatures = decompressor.syncSignatures;
+        int points = offsets.length;
+
+        long patternSignature = 0;
+        for (int i = 0; i < pattern.length(); ++i) {
+            patternSignature |= HuffmanFormat.signatureBit(pattern.charAt(i));
+        }
+
+        boolean[] candidates = new boolean[points];
+        for (int i = 0; i < points; ++i) {
+            long pair = signatures[i] | ((i + 1 < points) ? signatures[i + 1] : 0);
+            if ((pair & patternSignature) == patternSignature) {
+                Arrays.fill(candidates, Math.max(0, i - 1), Math.min(points, i + 3), true);
+            }
+        }
+
+        long blockStart = decompressor.totalChars - decompressor.blockChars;
+        long position = 0;
+        int point = 0;
+        while (point < points) {
+            if (!candidates[point]) {
+                ++skippedSegments;
+                ++point;
+                continue;
+            }
+
+            // 이어진 후보 구간을 동기점부터 한 번에 복호화합니다.
+            int end = point;
+            while (end < points && candidates[end]) ++end;
+
+            long startByte = offsets[point] >>> 3;
+            if (startByte < position) {
+                throw new CorruptDataException("파일 형식이 올바르지 않습니다: 동기점의 위치가 잘못되었습니다.");
+            }
+            decompressor.reader.skipNBytes(startByte - position);
+
+            long from = (long) point * HuffmanFormat.SYNC_INTERVAL;
+            long to = Math.min((long) end * HuffmanFormat.SYNC_INTERVAL, decompressor.blockChars);
+            if (point > 0) {
+                matcher.resumeAt(blockStart + from);
+            }
+            position = startByte + decode(matcher, (int) (offsets[point] & 7), (int) (to - from));
+            point = end;
+        }
+
+        if (position > decompressor.bodyBytes) {
+            throw new CorruptDataException("파일 형식이 올바르지 않습니다: 본문의 크기가 잘못되었습니다.");
+        }
+        decompressor.reader.skipNBytes(decompressor.bodyBytes - position);
+    }
+
+    /** 저장 블록('R')의 원본 바이트를 문자로 바꾸어 검색합니다. Compressor가 문자를 셀 때와 같이 잘못된 바이트열은 대체 문자로 바꿉니다. */
+    private void searchStored(LineMatcher matcher) throws IOException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        CharBuffer out = CharBuffer.allocate(READ_BUFFER_SIZE);
+        long remaining = decompressor.storedBytes;
+
+        while (true) {
+            int n = decompressor.reader.read(in.array(), in.position(), (int) Math.min(in.remaining(), remaining));
+            if (n == -1 && remaining > 0) {
+                throw new CorruptDataException("파일의 끝에 도달했습니다.");
+            }
+            if (n > 0) {
+                in.position(in.position() + n);
+                remaining -= n;
+            }
+
+            in.flip();
+            decoder.decode(in, out, remaining == 0);
+            if (remaining == 0) {
+                decoder.flush(out);
+            }
+            in.compact();
+
+            out.flip();
+            while (out.hasRemaining()) {
+                matcher.accept(out.get());
+            }
+            out.clear();
+
+            if (remaining == 0) break;
+        }
+    }
+
+    /**
+     * 하나의 비트 스트림으로 쓴 본문을 복호화하며 검색합니다.
+     * matcher가 null이면 문자를 비교하지 않고 본문의 끝까지 트리만 따라갑니다.
+     */
+    private void searchBody(LineMatcher matcher) throws IOException {
+        decode(matcher, 0, decompressor.blockChars);
+    }
+
+    /**
+     * 본문의 지금 위치부터 문자 count개를 복호화해 matcher에 넘기고, 읽은 바이트 수를 반환합니다.
+     * 첫 바이트의 앞쪽 skipBits비트는 앞 문자의 것이므로 건너뜁니다.
+     */
+    private long decode(LineMatcher matcher, int skipBits, int count) throws IOException {
+        DecodeTable table = decompressor.table;
+        int[] children = table.getChildren();
+        char[] symbols = table.getSymbols();
+        int escapeLeaf = decompressor.escapeLeaf(table);
+        InputStream reader = decompressor.reader;
+
+        int state = 0;
+        int readChars = 0;
+        long readBytes = 0;
+        int readByte;
+        int escapeRemaining = 0;
+        int escapeValue = 0;
+
+        while (readChars < count && (readByte = reader.read()) != -1) {
+            int firstBit = (readBytes++ == 0) ? 7 - skipBits : 7;
+            for (int bitIdx = firstBit; bitIdx >= 0; --bitIdx) {
+                char symbol;
+
+                if (escapeRemaining > 0) {
+                    // 탈출 코드 뒤의 문자 값을 모읍니다.
+                    escapeValue = (escapeValue << 1) | ((readByte >> bitIdx) & 1);
+                    if (--escapeRemaining > 0) {
+                        continue;
+                    }
+                    symbol = (char) escapeValue;
+                } else {
+                    int next = children[(state << 1) | ((readByte >> bitIdx) & 1)];
+                    if (next >= 0) {
+                        state = next;
+                        continue;
+                    }
+
+                    int leaf = ~next;
+                    state = 0;
+                    if (leaf == escapeLeaf) {
+                        escapeRemaining = HuffmanFormat.ESCAPE_BITS;
+                        escapeValue = 0;
+                        continue;
+                    }
+                    symbol = symbols[leaf];
+                }
+
+                if (matcher != null) {
+                    matcher.accept(symbol);
+                }
+                if (++readChars >= count) {
+                    break;
+                }
+            }
+        }
+
+        if (readChars < count) {
+            throw new CorruptDataException("파일의 끝에 도달했습니다: " + count + "자 중 " + readChars + "자만 읽었습니다.");
+        }
+        return readBytes;
+    }
+
+    /** 여러 비트 스트림으로 나뉜 본문을 메모리로 읽어 복호화하며 검색합니다. */
+    private void searchInterleavedBody(LineMatcher matcher) throws IOException {
+        int streamCount = readStreamCount();
+        int[] bitPos = new int[streamCount];
+        int[] bitEnd = new int[streamCount];
+        int totalBytes = readStreamTable(streamCount, bitPos, bitEnd);
+
+        byte[] body = decompressor.reader.readNBytes(totalBytes);
+        if (body.length < totalBytes) {
+            throw new CorruptDataException("파일의 끝에 도달했습니다.");
+        }
+
+        DecodeTable table = decompressor.table;
+        int[] children = table.getChildren();
+        char[] symbols = table.getSymbols();
+        int escapeLeaf = decompressor.escapeLeaf(table);
+        int blockChars = decompressor.blockChars;
+
+        // i번째 문자는 (i % 스트림 수)번째 스트림에 있으므로 스트림마다 문자 하나씩 번갈아 복호화합니다.
+        for (int readChars = 0; readChars < blockChars; ++readChars) {
+            int s = readChars % streamCount;
+            int pos = bitPos[s];
+            int end = bitEnd[s];
+            int next = 0;
+
+            do {
+                if (pos >= end) {
+                    throw new CorruptDataException("본문 읽기 중 오류 발생: 스트림의 끝에 도달했습니다.");
+                }
+                next = children[(next << 1) | ((body[pos >>> 3] >> (7 - (pos & 7))) & 1)];
+                ++pos;
+            } while (next >= 0);
+
+            int leaf = ~next;
+            char symbol;
+            if (leaf == escapeLeaf) {
+                if (pos + HuffmanFormat.ESCAPE_BITS > end) {
+                    throw new CorruptDataException("본문 읽기 중 오류 발생: 스트림의 끝에 도달했습니다.");
+                }
+                int value = 0;
+                for (int i = 0; i < HuffmanFormat.ESCAPE_BITS; ++i, ++pos) {
+                    value = (value << 1) | ((body[pos >>> 3] >> (7 - (pos & 7))) & 1);
+                }
+                symbol = (char) value;
+            } else {
+                symbol = symbols[leaf];
+            }
+            bitPos[s] = pos;
+
+            matcher.accept(symbol);
+        }
+    }
+
+    /** 스트림 표의 스트림 개수를 읽습니다. */
+    private int readStreamCount() throws IOException {
+        int streamCount = decompressor.reader.read();
+        if (streamCount < 1 || streamCount > HuffmanFormat.MAX_STREAMS) {
+            throw new CorruptDataException("파일 형식이 올바르지 않습니다: 스트림 개수가 잘못되었습니다.");
+        }
+        return streamCount;
+    }
+
+    /** 스트림별 바이트 수를 읽고 본문 전체의 바이트 수를 반환합니다. 배열이 주어지면 스트림별 시작과 끝 비트 위치를 채웁니다. */
+    private int readStreamTable(int streamCount, int[] bitPos, int[] bitEnd) throws IOException {
+        int totalBytes = 0;
+        for (int s = 0; s < streamCount; ++s) {
+            int size = decompressor.readInt();
+            if (size < 0 || totalBytes + size < totalBytes || totalBytes + size > Integer.MAX_VALUE / 8) {
+                throw new CorruptDataException("파일 형식이 올바르지 않습니다: 스트림 크기가 잘못되었습니다.");
+            }
+
+            if (bitPos != null) {
+                bitPos[s] = totalBytes * 8;
+                bitEnd[s] = (totalBytes + size) * 8;
+            }
+            totalBytes += size;
+        }
+        return totalBytes;
+    }
+
+    public int getSearchedBlocks() { return this.searchedBlocks; }
+
+    public int getSkippedBlocks() { return this.skippedBlocks; }
+
+    public int getSkippedSegments() { return this.skippedSegments; }
+
+    public double getElapsedTime() { return this.elapsedTime; }
+
+    /**
+     * 문자를 하나씩 받아 KMP로 검색어를 찾고, 찾은 위치를 줄과 함께 모읍니다.
+     * 줄바꿈이 없는 큰 파일에서도 메모리를 일정하게 쓰도록 줄 전체를 보관하지 않습니다. 찾기 전에는 최근 문자를 LINE_LIMIT자의 두 배까지만 남기고,
+     * 찾으면 그 앞 LINE_LIMIT자와 뒤 LINE_LIMIT자까지를 결과 줄로 모읍니다. 그사이에 찾은 위치는 같은 결과 줄을 사용합니다.
+     * 결과 줄은 줄의 어디부터 읽기 시작했는지와 관계없이 같으므로, 동기점에서 복호화를 시작해도 본문 전체를 읽을 때와 결과가 같습니다.
+     */
+    private static class LineMatcher {
+        /** 결과 줄에 담는 검색어 앞뒤의 문자 수입니다. 이보다 짧은 줄은 그대로 담습니다. */
+        private static final int LINE_LIMIT = 4096;
+        /** 줄의 앞이나 뒤를 잘랐을 때 표시하는 문자열입니다. */
+        private static final String ELLIPSIS = "...";
+
+        private final char[] pattern;
+        /** failure[i]는 pattern[0..i]의 접두사이면서 접미사인 가장 긴 문자열의 길이입니다. */
+        private final int[] failure;
+
+        /** 지금까지 일치한 검색어의 길이입니다. */
+        private int state;
+        /** 다음에 받을 문자의 위치입니다. */
+        private long offset;
+        /** 지금 읽고 있는 줄의 최근 문자와, 줄의 앞부분을 버렸는지 여부입니다. */
+        private final StringBuilder recent;
+        private boolean recentCut;
+        /** 모으고 있는 결과 줄과 그 줄에 속한 위치입니다. 결과 줄이 없으면 context는 null입니다. */
+        private StringBuilder context;
+        private boolean contextCut;
+        private int contextRemaining;
+        private final List<Long> lineHits;
+
+        final List<SearchHit> hits;
+
+        LineMatcher(String pattern) {
+            this.pattern = pattern.toCharArray();
+            this.failure = new int[this.pattern.length];
+            for (int i = 1, k = 0; i < this.pattern.length; ++i) {
+                while (k > 0 && this.pattern[i] != this.pattern[k]) {
+                    k = failure[k - 1];
+                }
+                if (this.pattern[i] == this.pattern[k]) {
+                    ++k;
+                }
+                failure[i] = k;
+            }
+
+            this.recent = new StringBuilder();
+            this.lineHits = new ArrayList<>();
+            this.hits = new ArrayList<>();
+        }
+
+        /** 블록의 첫 문자 위치를 지정합니다. 이전 블록에서 이어지던 일치는 버립니다. */
+        void startBlock(long offset) {
+            this.offset = offset;
+            this.state = 0;
+        }
+
+        /** 건너뛴 구간 다음의 동기점부터 다시 문자를 받습니다. 건너뛴 구간이 있으므로 지금 줄의 앞부분은 알 수 없습니다. */
+        void resumeAt(long offset) {
+            if (context != null) {
+                flush(true);
+            }
+            recent.setLength(0);
+            recentCut = true;
+            this.offset = offset;
+            this.state = 0;
+        }
+
+        void accept(char ch) {
+            if (ch == '\n') {
+                endLine();
+                state = 0;
+                ++offset;
+                return;
+            }
+
+            if (recent.length() >= 2 * LINE_LIMIT) {
+                recent.delete(0, LINE_LIMIT);
+                recentCut = true;
+            }
+            recent.append(ch);
+            if (context != null) {
+                if (contextRemaining > 0) {
+                    context.append(ch);
+                    --contextRemaining;
+                } else {
+                    // 검색어 뒤로 충분히 모았으면 나머지는 버립니다.
+                    flush(true);
+                }
+            }
+
+            while (state > 0 && pattern[state] != ch) {
+                state = failure[state - 1];
+            }
+            if (pattern[state] == ch) {
+                ++state;
+            }
+            if (state == pattern.length) {
+                if (context == null) {
+                    int start = Math.max(0, recent.length() - LINE_LIMIT);
+                    context = new StringBuilder(recent.substring(start));
+                    contextCut = recentCut || start > 0;
+                    contextRemaining = LINE_LIMIT;
+                }
+                lineHits.add(offset - pattern.length + 1);
+                state = failure[state - 1];
+            }
+            ++offset;
+        }
+
+        /** 줄이 끝나면 그 줄에서 찾은 위치를 결과에 넣습니다. */
+        void endLine() {
+            if (context != null) {
+                flush(false);
+            }
+            recent.setLength(0);
+            recentCut = false;
+        }
+
+        /** 모은 결과 줄로 찾은 위치를 결과에 넣습니다. 잘린 쪽에는 생략 표시를 붙입니다. */
+        private void flush(boolean tailCut) {
+            String text = (contextCut ? ELLIPSIS : "") + context + (tailCut ? ELLIPSIS : "");
+            for (long hit : lineHits) {
+                hits.add(new SearchHit(hit, text));
+            }
+            lineHits.clear();
+            context = null;
+        }
+    }
+}
@@ -0,0 +1,662 @@
+package com.patulus.huffmancoding.engine;
+
+import com.patulus.huffmancoding.compressor.CompressionEstimate;
+import com.patulus.huffmancoding.decompressor.Decompressor;
+import com.patulus.huffmancoding.general.HuffmanFormat;
+import com.patulus.huffmancoding.general.Utf8;
+import com.patulus.huffmancoding.job.CodecException;
+import com.patulus.huffmancoding.job.CorruptDataException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 작은 메시지를 많이 압축하고 복원하기 위한 재사용 가능한 코덱입니다.
+ * 출현 횟수 배열, 트리, 코드 표, 복호화 표, 출력 버퍼를 묶은 작업 공간을 풀에 두고 호출 사이에 초기화해 재사용하므로,
+ * 호출마다 새로 할당하는 것은 결과 배열 정도입니다. 여러 스레드가 객체 하나를 함께 사용할 수 있습니다.
+ * 작업 공간은 스레드가 아니라 호출이 빌려 쓰므로, 요청마다 새 스레드(가상 스레드)를 쓰는 서버에서도 재사용됩니다.
+ *
+ * 결과는 Compressor가 본문을 하나의 비트 스트림으로 쓸 때와 같은 기본 블록('H') 또는 저장 블록('R') 하나이므로,
+ * Decompressor로도 복원할 수 있습니다. 반대로 이 코덱이 직접 처리하지 않는 블록은 Decompressor에 넘겨 복원합니다.
+ * 탈출 코드, 표 재사용, 인터리브 스트림은 이 코덱에서 따로 구현하지 않고 모두 Decompressor가 처리하며,
+ * 헤더의 구분 바이트와 크기 확인(HuffmanFormat), 말단 문자의 부호화(Utf8), 헤더 크기 계산(CompressionEstimate)은
+ * Compressor, Decompressor와 같은 코드를 사용합니다. 트리와 표만 호출 사이에 재사용하도록 배열로 따로 관리합니다.
+ */
+public class CodecEngine {
+    /** 헤더 정보 구분을 위한 의미 없는 바이트를 추가합니다. */
+    private static final int MEANINGLESS_CHARACTER = HuffmanFormat.SEPARATOR;
+    /** 이 크기를 넘는 버퍼는 호출이 끝나면 버려, 큰 메시지 하나 때문에 풀의 작업 공간이 커진 채로 남지 않도록 합니다. */
+    private static final int RETAIN_LIMIT = 1 << 20;
+    /** 트리의 말단 노드 수의 상한입니다. (모든 UTF-16 단위와 부모 노드를 강제로 만들 때 추가하는 노드) */
+    private static final int MAX_LEAVES = Character.MAX_VALUE + 2;
+
+    /** 쉬고 있는 작업 공간입니다. 풀이 비어 있으면 새로 만들고, 가득 차 있으면 반납한 작업 공간을 버립니다. */
+    private final BlockingQueue<Workspace> pool;
+
+    /** 작업 공간을 프로세서 수의 두 배까지 보관하는 코덱을 만듭니다. */
+    public CodecEngine() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /** 작업 공간을 poolSize개까지 보관하는 코덱을 만듭니다. 작업 공간 하나는 약 1MB입니다. */
+    public CodecEngine(int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("작업 공간 풀의 크기는 1 이상이어야 합니다.");
+        }
+        this.pool = new ArrayBlockingQueue<>(poolSize);
+    }
+
+    /** 길이가 srcLength인 데이터를 압축한 결과의 크기 상한입니다. 이득이 없으면 저장 블록을 쓰므로 원본보다 조금만 큽니다. */
+    public static int maxCompressedLength(int srcLength) {
+        return Math.addExact(srcLength, CompressionEstimate.STORED_HEADER_BYTES);
+    }
+
+    /** 데이터를 압축한 결과를 반환합니다. 결과 배열은 미리 계산한 크기로 한 번만 할당합니다. */
+    public byte[] compress(byte[] src) throws IOException {
+        return compress(src, 0, src.length);
+    }
+
+    /** 배열의 일부를 압축한 결과를 반환합니다. */
+    public byte[] compress(byte[] src, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, src.length);
+
+        Workspace ws = acquire();
+        try {
+            byte[] result = new byte[ws.plan(src, off, len)];
+            ws.write(src, off, len, result, 0);
+            return result;
+        } finally {
+            release(ws);
+        }
+    }
+
+    /**
+     * 배열의 일부를 압축해 출력 배열의 dstOff 위치부터 쓰고, 쓴 바이트 수를 반환합니다.
+     * 압축 결과의 크기를 먼저 계산하므로, 출력 배열의 공간이 부족하면 아무것도 쓰지 않고 예외를 던집니다.
+     */
+    public int compress(byte[] src, int off, int len, byte[] dst, int dstOff) throws IOException {
+        Objects.checkFromIndexSize(off, len, src.length);
+        Objects.checkIndex(dstOff, dst.length + 1);
+
+        Workspace ws = acquire();
+        try {
+            int length = ws.plan(src, off, len);
+            if (length > dst.length - dstOff) {
+                throw new CodecException("출력 버퍼의 공간이 부족합니다: " + length + "바이트가 필요합니다.");
+            }
+            return ws.write(src, off, len, dst, dstOff);
+        } finally {
+            release(ws);
+        }
+    }
+
+    /** 압축 데이터를 복원한 결과를 반환합니다. */
+    public byte[] decompress(byte[] src) throws IOException {
+        return decompress(src, 0, src.length);
+    }
+
+    /** 배열의 일부에 담긴 압축 데이터를 복원한 결과를 반환합니다. 복원은 작업 공간의 출력 버퍼에 한 뒤 결과 크기만큼 복사합니다. */
+    public byte[] decompress(byte[] src, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, src.length);
+
+        Workspace ws = acquire();
+        int end = off + len;
+        try {
+            long bound = ws.readHeader(src, off, end);
+            if (bound >= 0 && bound <= Integer.MAX_VALUE - 8) {
+                byte[] out = ws.output((int) bound);
+                int n = ws.readBody(src, end, out, 0, out.length);
+                if (ws.pos == end) {
+                    return Arrays.copyOf(out, n);
+                }
+            }
+        } finally {
+            release(ws);
+        }
+
+        // 직접 처리하지 않는 블록이거나 블록이 여러 개이면 Decompressor로 복원합니다.
+        return Decompressor.decompress(ByteBuffer.wrap(src, off, len));
+    }
+
+    /** 배열의 일부에 담긴 압축 데이터를 복원해 출력 배열의 dstOff 위치부터 쓰고, 쓴 바이트 수를 반환합니다. */
+    public int decompress(byte[] src, int off, int len, byte[] dst, int dstOff) throws IOException {
+        Objects.checkFromIndexSize(off, len, src.length);
+        Objects.checkIndex(dstOff, dst.length + 1);
+
+        Workspace ws = acquire();
+        int end = off + len;
+        try {
+            if (ws.readHeader(src, off, end) >= 0) {
+                int n = ws.readBody(src, end, dst, dstOff, dst.length);
+                if (ws.pos == end) {
+                    return n;
+                }
+            }
+        } finally {
+            release(ws);
+        }
+
+        return Decompressor.decompress(ByteBuffer.wrap(src, off, len), ByteBuffer.wrap(dst, dstOff, dst.length - dstOff));
+    }
+
+    private Workspace acquire() {
+        Workspace ws = pool.poll();
+        return (ws != null) ? ws : new Workspace();
+    }
+
+    /** 작업 공간을 초기화해 풀에 돌려놓습니다. */
+    private void release(Workspace ws) {
+        ws.reset();
+        pool.offer(ws);
+    }
+
+    /**
+     * 호출 하나가 빌려 쓰는 작업 공간입니다.
+     * 문자별 배열(출현 횟수, 코드)은 사용한 문자만 지우고, 트리와 복호화 표는 필요할 때만 늘립니다.
+     */
+    private static final class Workspace {
+        /** 잘못된 UTF-8은 InputStreamReader와 같이 대체 문자로 바꿉니다. */
+        private final CharsetDecoder utf8 = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        /** 압축할 데이터를 UTF-16 단위로 풀어 둔 버퍼입니다. */
+        private char[] chars = new char[4096];
+        private CharBuffer charBuffer = CharBuffer.wrap(chars);
+        /** 이번 호출의 문자와 문자 수입니다. 큰 메시지이면 chars 대신 임시 배열을 가리킵니다. */
+        private char[] text;
+        private int textLength;
+
+        /** 문자별 출현 횟수, 허프만 코드, 코드 길이입니다. 사용한 문자의 칸만 reset()에서 지웁니다. */
+        private final int[] counts = new int[Character.MAX_VALUE + 1];
+        private final long[] codes = new long[Character.MAX_VALUE + 1];
+        private final byte[] codeLengths = new byte[Character.MAX_VALUE + 1];
+
+        /**
+         * 배열로 표현한 허프만 트리입니다. 0부터 leaves - 1까지는 말단 노드, 그 뒤는 내부 노드입니다.
+         * heap은 노드 번호의 최소 힙, order는 전위 순회 순서, stack은 순회에 사용합니다.
+         */
+        private int[] frequency = new int[512];
+        private int[] left = new int[512];
+        private int[] right = new int[512];
+        private char[] symbol = new char[512];
+        private long[] nodeCode = new long[512];
+        private int[] nodeLength = new int[512];
+        private int[] heap = new int[512];
+        private int[] order = new int[512];
+        private int[] stack = new int[512];
+        /** 말단 노드 수입니다. (부모 노드를 강제로 만들 때 추가한 노드 포함) */
+        private int leaves;
+        /** 출현 횟수를 센 서로 다른 문자 수입니다. reset()에서 이 문자들의 칸을 지웁니다. */
+        private int usedChars;
+        /** 트리 노드 수입니다. */
+        private int nodes;
+        /** 압축 결과를 저장 블록으로 쓸지 여부입니다. */
+        private boolean stored;
+
+        /** 복호화 표입니다. 내부 노드 i에서 비트 b를 읽으면 children[2 * i + b]로 이동하며, 음수이면 ~값 번째 말단 노드입니다. */
+        private int[] children = new int[512];
+        /** 말단 노드의 UTF-8 바이트열(노드마다 Utf8.MAX_CHAR_BYTES칸)과 길이입니다. */
+        private byte[] leafBytes = new byte[Utf8.MAX_CHAR_BYTES * 256];
+        private byte[] leafLengths = new byte[256];
+        /** 복원 결과를 담는 출력 버퍼입니다. */
+        private byte[] out = new byte[4096];
+
+        /** 읽고 있는 블록의 식별자, 문자 수, 저장 블록의 바이트 수입니다. */
+        private int identifier;
+        private int blockChars;
+        private int storedBytes;
+        /** 압축 데이터에서 다음에 읽을 위치입니다. */
+        private int pos;
+
+        /**
+         * 문자 출현 횟수를 세 허프만 트리와 코드를 만들고, 압축 결과의 정확한 크기를 반환합니다.
+         * Compressor와 같이 허프만 부호화가 이득이 없으면 저장 블록의 크기를 반환합니다.
+         */
+        int plan(byte[] src, int off, int len) throws IOException {
+            decodeText(src, off, len);
+            if (textLength == 0) {
+                // 빈 메시지는 문자가 없는 저장 블록으로 씁니다.
+                stored = true;
+                return CompressionEstimate.STORED_HEADER_BYTES;
+            }
+
+            // 문자 출현 횟수를 셉니다. 처음 나온 문자는 말단 노드로 추가합니다.
+            for (int i = 0; i < textLength; ++i) {
+                char ch = text[i];
+                if (counts[ch]++ == 0) {
+                    ensureNodes(2 * (leaves + 1));
+                    symbol[leaves++] = ch;
+                }
+            }
+            usedChars = leaves;
+            for (int leaf = 0; leaf < leaves; ++leaf) {
+                frequency[leaf] = counts[symbol[leaf]];
+                left[leaf] = -1;
+            }
+            // 말단 노드가 하나뿐이면 의미 없는 말단 노드를 추가해 부모 노드를 만듭니다.
+            if (leaves == 1) {
+                symbol[leaves] = (char) MEANINGLESS_CHARACTER;
+                frequency[leaves] = 0;
+                left[leaves++] = -1;
+            }
+
+            int root = buildTree();
+            assignCodes(root);
+
+            long leafBytes = 0;
+            long bodyBits = 0;
+            for (int leaf = 0; leaf < leaves; ++leaf) {
+                leafBytes += Utf8.length(symbol[leaf]);
+                bodyBits += (long) frequency[leaf] * nodeLength[leaf];
+            }
+
+            long headerBytes = CompressionEstimate.huffmanHeaderBytes(nodes, leafBytes, 1);
+            long huffmanBytes = headerBytes + (bodyBits + 7) / 8;
+            stored = huffmanBytes >= CompressionEstimate.STORED_HEADER_BYTES + (long) len;
+            return stored ? CompressionEstimate.STORED_HEADER_BYTES + len : (int) huffmanBytes;
+        }
+
+        /** plan()에서 정한 형식으로 압축 결과를 쓰고, 쓴 바이트 수를 반환합니다. */
+        int write(byte[] src, int off, int len, byte[] dst, int dstOff) {
+            int p = dstOff;
+
+            if (stored) {
+                dst[p++] = HuffmanFormat.STORED;
+                p = putInt(dst, p, textLength);
+                p = putInt(dst, p, len);
+                dst[p++] = (byte) MEANINGLESS_CHARACTER;
+                System.arraycopy(src, off, dst, p, len);
+                return p + len - dstOff;
+            }
+
+            dst[p++] = HuffmanFormat.CLASSIC;
+            p = putInt(dst, p, textLength);
+            dst[p++] = (byte) MEANINGLESS_CHARACTER;
+
+            // 트리 구조 정보를 전위 순회 순서로 씁니다. (내부 노드는 0, 말단 노드는 1)
+            int buffer = 0;
+            int bufferIdx = 0;
+            for (int i = 0; i < nodes; ++i) {
+                buffer = (buffer << 1) | ((order[i] < leaves) ? 1 : 0);
+                if (++bufferIdx == 8) {
+                    dst[p++] = (byte) buffer;
+                    buffer = 0;
+                    bufferIdx = 0;
+                }
+            }
+            if (bufferIdx > 0) {
+                dst[p++] = (byte) (buffer << (8 - bufferIdx));
+            }
+            dst[p++] = (byte) MEANINGLESS_CHARACTER;
+
+            // 말단 노드의 문자를 같은 순서로 씁니다.
+            for (int i = 0; i < nodes; ++i) {
+                if (order[i] < leaves) {
+                    p = Utf8.encode(dst, p, symbol[order[i]]);
+                }
+            }
+            dst[p++] = (byte) MEANINGLESS_CHARACTER;
+
+            // 본문을 씁니다. 코드는 최대 45비트이므로 남은 비트(8 미만)와 함께 64비트 누산기에 들어갑니다.
+            long acc = 0;
+            int bits = 0;
+            for (int i = 0; i < textLength; ++i) {
+                char ch = text[i];
+                int length = codeLengths[ch];
+                acc = (acc << length) | codes[ch];
+                bits += length;
+                while (bits >= 8) {
+                    bits -= 8;
+                    dst[p++] = (byte) (acc >>> bits);
+                }
+            }
+            if (bits > 0) {
+                dst[p++] = (byte) (acc << (8 - bits));
+            }
+
+            return p - dstOff;
+        }
+
+        /** 데이터를 UTF-16 단위로 풀어 text에 담습니다. */
+        private void decodeText(byte[] src, int off, int len) {
+            // UTF-8 바이트 하나는 최대 문자 하나가 되므로 len칸이면 충분합니다.
+            CharBuffer target;
+            if (len <= chars.length) {
+                target = charBuffer.clear();
+            } else if (len <= RETAIN_LIMIT) {
+                chars = new char[Math.max(len, Math.min(2 * chars.length, RETAIN_LIMIT))];
+                charBuffer = CharBuffer.wrap(chars);
+                target = charBuffer;
+            } else {
+                target = CharBuffer.allocate(len);
+            }
+
+            utf8.reset();
+            utf8.decode(ByteBuffer.wrap(src, off, len), target, true);
+            utf8.flush(target);
+
+            text = target.array();
+            textLength = target.position();
+        }
+
+        /** 최소 힙으로 말단 노드를 합쳐 허프만 트리를 만들고 루트 노드 번호를 반환합니다. */
+        private int buildTree() {
+            ensureNodes(2 * leaves);
+
+            int size = 0;
+            for (int leaf = 0; leaf < leaves; ++leaf) {
+                size = heapInsert(size, leaf);
+            }
+
+            nodes = leaves;
+            while (size > 1) {
+                int a = heap[0];
+                size = heapDelete(size);
+                int b = heap[0];
+                size = heapDelete(size);
+
+                frequency[nodes] = frequency[a] + frequency[b];
+                left[nodes] = a;
+                right[nodes] = b;
+                size = heapInsert(size, nodes++);
+            }
+
+            return heap[0];
+        }
+
+        /** 노드 a가 노드 b보다 먼저 꺼낼 노드인지 비교합니다. 출현 횟수가 같으면 번호가 작은 노드가 먼저입니다. */
+        private boolean before(int a, int b) {
+            return frequency[a] < frequency[b] || (frequency[a] == frequency[b] && a < b);
+        }
+
+        private int heapInsert(int size, int node) {
+            int idx = size++;
+            while (idx > 0 && before(node, heap[(idx - 1) / 2])) {
+                heap[idx] = heap[(idx - 1) / 2];
+                idx = (idx - 1) / 2;
+            }
+            heap[idx] = node;
+            return size;
+        }
+
+        private int heapDelete(int size) {
+            int last = heap[--size];
+            int idx = 0;
+            int child = 1;
+            while (child < size) {
+                if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                    ++child;
+                }
+                if (!before(heap[child], last)) {
+                    break;
+                }
+                heap[idx] = heap[child];
+                idx = child;
+                child = 2 * idx + 1;
+            }
+            heap[idx] = last;
+            return size;
+        }
+
+        /** 트리를 전위 순회하며 순서를 기록하고, 말단 노드의 허프만 코드를 문자별 코드 표에 채웁니다. */
+        private void assignCodes(int root) {
+            int count = 0;
+            int sp = 0;
+            stack[sp++] = root;
+            nodeCode[root] = 0;
+            nodeLength[root] = 0;
+
+            while (sp > 0) {
+                int node = stack[--sp];
+                order[count++] = node;
+
+                if (node < leaves) {
+                    codes[symbol[node]] = nodeCode[node];
+                    codeLengths[symbol[node]] = (byte) nodeLength[node];
+                    continue;
+                }
+
+                // 왼쪽 자식을 먼저 방문하도록 오른쪽 자식을 먼저 넣습니다.
+                int l = left[node];
+                int r = right[node];
+                nodeCode[l] = nodeCode[node] << 1;
+                nodeCode[r] = (nodeCode[node] << 1) | 1;
+                nodeLength[l] = nodeLength[r] = nodeLength[node] + 1;
+                stack[sp++] = r;
+                stack[sp++] = l;
+            }
+        }
+
+        /** 트리 노드 배열이 capacity개 이상이 되도록 늘립니다. */
+        private void ensureNodes(int capacity) {
+            if (capacity <= frequency.length) return;
+
+            int size = Math.max(capacity, 2 * frequency.length);
+            frequency = Arrays.copyOf(frequency, size);
+            left = Arrays.copyOf(left, size);
+            right = Arrays.copyOf(right, size);
+            symbol = Arrays.copyOf(symbol, size);
+            nodeCode = Arrays.copyOf(nodeCode, size);
+            nodeLength = Arrays.copyOf(nodeLength, size);
+            heap = Arrays.copyOf(heap, size);
+            order = Arrays.copyOf(order, size);
+            stack = Arrays.copyOf(stack, size);
+        }
+
+        /**
+         * 블록의 헤더를 읽어 복호화 표를 만들고, 복원 결과의 크기 상한을 반환합니다.
+         * 직접 처리하지 않는 블록이면 -1을 반환합니다.
+         */
+        long readHeader(byte[] src, int off, int end) throws IOException {
+            pos = off;
+            identifier = nextByte(src, end);
+
+            if (identifier == HuffmanFormat.STORED) {
+                blockChars = readInt(src, end);
+                storedBytes = readInt(src, end);
+                if (nextByte(src, end) != MEANINGLESS_CHARACTER) {
+                    throw new CorruptDataException("파일 형식이 올바르지 않습니다.");
+                }
+                HuffmanFormat.checkStoredBytes(storedBytes, end - pos);
+                return storedBytes;
+            }
+            if (identifier != HuffmanFormat.CLASSIC) {
+                return -1;
+            }
+
+            // 헤더의 문자 수로 출력 버퍼를 할당하므로, 남은 데이터로 나타낼 수 없는 크기이면 먼저 거부합니다.
+            blockChars = readInt(src, end);
+            HuffmanFormat.checkBlockChars(blockChars, end - pos);
+            if (nextByte(src, end) != MEANINGLESS_CHARACTER) {
+                throw new CorruptDataException("파일 형식이 올바르지 않습니다.");
+            }
+
+            int leafCount = readTree(src, end);
+            if (nextByte(src, end) != MEANINGLESS_CHARACTER) {
+                throw new CorruptDataException("파일 형식이 올바르지 않습니다.");
+            }
+
+            // 말단 노드의 문자를 읽고, 출력할 UTF-8 바이트열을 미리 계산합니다.
+            if (leafLengths.length < leafCount) {
+                leafLengths = new byte[Math.max(leafCount, 2 * leafLengths.length)];
+                leafBytes = new byte[Utf8.MAX_CHAR_BYTES * leafLengths.length];
+            }
+            int maxBytes = 0;
+            for (int leaf = 0; leaf < leafCount; ++leaf) {
+                int length = Utf8.encode(leafBytes, Utf8.MAX_CHAR_BYTES * leaf, readChar(src, end)) - Utf8.MAX_CHAR_BYTES * leaf;
+                leafLengths[leaf] = (byte) length;
+                maxBytes = Math.max(maxBytes, length);
+            }
+            if (nextByte(src, end) != MEANINGLESS_CHARACTER) {
+                throw new CorruptDataException("파일 형식이 올바르지 않습니다.");
+            }
+
+            return (long) blockChars * maxBytes;
+        }
+
+        /**
+         * 트리 구조 비트를 읽어 복호화 표를 채우고 말단 노드 수를 반환합니다.
+         * 구분 바이트가 아니라 트리 구조로 끝을 판단하므로, 트리 구조 비트에 255인 바이트가 있어도 읽을 수 있습니다.
+         */
+        private int readTree(byte[] src, int end) throws IOException {
+            int internals = 0;
+            int leafCount = 0;
+            int bitPos = 0;
+
+            // 채울 칸을 (내부 노드 번호 * 2 + 방향)으로 쌓습니다. -1은 루트 노드입니다.
+            int sp = 0;
+            stack[sp++] = -1;
+            while (sp > 0) {
+                int slot = stack[--sp];
+
+                int byteIdx = pos + (bitPos >>> 3);
+                if (byteIdx >= end) {
+                    throw new CorruptDataException("파일의 끝에 도달했습니다.");
+                }
+                int bit = (src[byteIdx] >> (7 - (bitPos & 7))) & 1;
+                ++bitPos;
+
+                int value;
+                if (bit == 0) {
+                    if (internals + 1 >= MAX_LEAVES) {
+                        throw new CorruptDataException("파일 형식이 올바르지 않습니다: 허프만 트리가 너무 큽니다.");
+                    }
+                    value = internals++;
+                    if (children.length < 2 * internals) {
+                        children = Arrays.copyOf(children, Math.max(2 * internals, 2 * children.length));
+                    }
+                    if (stack.length < sp + 2) {
+                        ensureNodes(sp + 2);
+                    }
+                    stack[sp++] = 2 * value + 1;
+                    stack[sp++] = 2 * value;
+                } else {
+                    value = ~leafCount++;
+                }
+
+                if (slot == -1) {
+                    if (bit == 1) {
+                        throw new CorruptDataException("파일 형식이 올바르지 않습니다: 허프만 트리가 비어 있습니다.");
+                    }
+                } else {
+                    children[slot] = value;
+                }
+            }
+
+            pos += (bitPos + 7) >>> 3;
+            return leafCount;
+        }
+
+        /** UTF-8로 부호화된 말단 노드의 문자 하나를 읽습니다. 4바이트 문자는 Decompressor와 같이 앞쪽 대리 문자가 됩니다. */
+        private char readChar(byte[] src, int end) throws IOException {
+            int numBytes = Utf8.sequenceLength(nextByte(src, end));
+            if (numBytes - 1 > end - pos) {
+                throw new CorruptDataException("파일의 끝에 도달했습니다.");
+            }
+            char ch = Utf8.decode(src, pos - 1, numBytes);
+            pos += numBytes - 1;
+            return ch;
+        }
+
+        /** readHeader()로 읽은 블록의 본문을 복원해 출력 배열에 쓰고, 쓴 바이트 수를 반환합니다. */
+        int readBody(byte[] src, int end, byte[] dst, int dstOff, int dstEnd) throws IOException {
+            if (identifier == HuffmanFormat.STORED) {
+                if (storedBytes > dstEnd - dstOff) {
+                    throw new CodecException("출력 버퍼의 공간이 부족합니다.");
+                }
+                System.arraycopy(src, pos, dst, dstOff, storedBytes);
+                pos += storedBytes;
+                return storedBytes;
+            }
+
+            int q = dstOff;
+            int state = 0;
+            int readChars = 0;
+            while (readChars < blockChars) {
+                if (pos >= end) {
+                    throw new CorruptDataException("파일의 끝에 도달했습니다: " + blockChars + "자 중 " + readChars + "자만 복원했습니다.");
+                }
+                int readByte = src[pos++];
+
+                for (int bitIdx = 7; bitIdx >= 0; --bitIdx) {
+                    // 비트를 읽어 다음 노드로 이동합니다. (0이면 왼쪽, 1이면 오른쪽)
+                    int next = children[(state << 1) | ((readByte >> bitIdx) & 1)];
+                    if (next >= 0) {
+                        state = next;
+                        continue;
+                    }
+
+                    // 말단 노드에 도착하면 미리 계산한 UTF-8 바이트열을 씁니다.
+                    int leaf = ~next;
+                    int length = leafLengths[leaf];
+                    if (length > dstEnd - q) {
+                        throw new CodecException("출력 버퍼의 공간이 부족합니다.");
+                    }
+                    System.arraycopy(leafBytes, Utf8.MAX_CHAR_BYTES * leaf, dst, q, length);
+                    q += length;
+                    state = 0;
+
+                    if (++readChars >= blockChars) {
+                        break;
+                    }
+                }
+            }
+
+            return q - dstOff;
+        }
+
+        /** 복원에 사용할 출력 버퍼를 반환합니다. 큰 결과이면 재사용하지 않는 임시 배열을 반환합니다. */
+        byte[] output(int capacity) {
+            if (capacity > RETAIN_LIMIT) {
+                return new byte[capacity];
+            }
+            if (out.length < capacity) {
+                out = new byte[Math.max(capacity, Math.min(2 * out.length, RETAIN_LIMIT))];
+            }
+            return out;
+        }
+
+        private int nextByte(byte[] src, int end) throws CorruptDataException {
+            if (pos >= end) {
+                throw new CorruptDataException("파일의 끝에 도달했습니다.");
+            }
+            return src[pos++] & 0xFF;
+        }
+
+        private int readInt(byte[] src, int end) throws CorruptDataException {
+            int value = 0;
+            for (int i = 0; i < 4; ++i) {
+                value = (value << 8) | nextByte(src, end);
+            }
+            return value;
+        }
+
+        private static int putInt(byte[] dst, int p, int value) {
+            for (int i = 4; i > 0; --i) {
+                dst[p++] = (byte) (value >> (8 * (i - 1)));
+            }
+            return p;
+        }
+
+        /** 다음 호출을 위해 사용한 문자의 칸을 지우고, 큰 임시 배열에 대한 참조를 놓습니다. */
+        void reset() {
+            for (int leaf = 0; leaf < usedChars; ++leaf) {
+                counts[symbol[leaf]] = 0;
+            }
+            leaves = 0;
+            usedChars = 0;
+            nodes = 0;
+            text = null;
+            textLength = 0;
+        }
+    }
+}
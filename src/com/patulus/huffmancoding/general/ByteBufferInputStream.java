@@ -0,0 +1,47 @@
+package com.patulus.huffmancoding.general;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 바이트 버퍼의 position부터 limit까지를 읽는 입력 스트림입니다.
+ * 힙 버퍼와 다이렉트 버퍼 모두 복사 없이 읽으며, 읽은 만큼 버퍼의 position이 이동합니다.
+ */
+public class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+
+        int n = Math.min(len, buffer.remaining());
+        buffer.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public long skip(long n) {
+        int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+        buffer.position(buffer.position() + skipped);
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+}
@@ -0,0 +1,33 @@
+package com.patulus.huffmancoding.general;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 호출자가 준 바이트 버퍼에 쓰는 출력 스트림입니다.
+ * 버퍼를 늘리지 않으므로, 남은 공간을 넘겨 쓰면 예외를 던집니다.
+ */
+public class ByteBufferOutputStream extends OutputStream {
+    private final ByteBuffer buffer;
+
+    public ByteBufferOutputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            throw new IOException("출력 버퍼의 공간이 부족합니다.");
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (len > buffer.remaining()) {
+            throw new IOException("출력 버퍼의 공간이 부족합니다.");
+        }
+        buffer.put(b, off, len);
+    }
+}
@@ -0,0 +1,81 @@
+package com.patulus.huffmancoding.general;
+
+import com.patulus.huffmancoding.job.CorruptDataException;
+
+/**
+ * 압축 파일 형식의 식별자와 플래그입니다.
+ *
+ * 'H' 블록: 'H' | 문자 수(4) | 255 | 트리 구조 비트 | 255 | 말단 문자(UTF-8) | 255 | 본문
+ * 'E' 블록: 'E' | 플래그(1) | 문자 수(4) | 255 | 트리 구조 비트 | 255 | 말단 문자(UTF-8) | 255 | [스트림 표 또는 동기점 색인] | 본문
+ * 'R' 블록: 'R' | 문자 수(4) | 바이트 수(4) | 255 | 원본 바이트
+ * 'T' 블록: 'T' | 문자 수(4) | 255 | 본문 (파일의 첫 번째 블록의 표와 탈출 코드 플래그로 부호화)
+ *
+ * 압축 파일은 블록 하나 이상을 이어 붙인 것이며, 덧붙이기를 하면 파일 끝에 블록이 추가됩니다.
+ */
+public class HuffmanFormat {
+    /** 기본 블록의 식별자입니다. */
+    public static final int CLASSIC = 'H';
+    /** 플래그로 확장 기능을 지정하는 블록의 식별자입니다. */
+    public static final int EXTENDED = 'E';
+    /** 허프만 부호화가 이득이 없어 원본을 그대로 저장한 블록의 식별자입니다. */
+    public static final int STORED = 'R';
+    /** 파일의 첫 번째 블록의 표를 재사용하는 블록의 식별자입니다. */
+    public static final int REUSE = 'T';
+
+    /** (플래그) 본문을 여러 비트 스트림으로 나누어 씁니다. 헤더 뒤에 스트림 개수(1)와 스트림별 바이트 수(4)가 옵니다. */
+    public static final int FLAG_INTERLEAVED = 0x01;
+
+    /** (플래그) 문자 ESCAPE_CHARACTER의 말단 노드는 탈출 코드이며, 그 뒤 16비트에 표에 없는 문자의 값이 옵니다. */
+    public static final int FLAG_ESCAPE = 0x02;
+    /**
+     * (플래그) 하나의 비트 스트림으로 쓴 본문 앞에 동기점 색인이 옵니다. 인터리브 스트림과 함께 쓸 수 없습니다.
+     * 본문 바이트 수(4) | 동기점 개수(4) | 동기점마다 비트 위치(8)와 문자 서명(8)
+     * i번째 동기점은 (i * SYNC_INTERVAL)번째 문자가 시작하는 본문의 비트 위치이며, 문자 서명은 그 동기점부터 다음 동기점 전까지 나오는 문자의 signatureBit()를 합친 값입니다.
+     */
+    public static final int FLAG_SYNC_INDEX = 0x04;
+    /** 지원하는 플래그 전체입니다. */
+    public static final int SUPPORTED_FLAGS = FLAG_INTERLEAVED | FLAG_ESCAPE | FLAG_SYNC_INDEX;
+
+    /** 동기점 사이의 문자 수입니다. 검색 결과 줄의 앞뒤 문자 수보다 커야, 동기점 하나 앞에서 복호화를 시작해도 줄을 온전히 모을 수 있습니다. */
+    public static final int SYNC_INTERVAL = 8192;
+
+    /** 탈출 코드로 쓰는 문자입니다. 유니코드 비문자(U+FFFF)이므로 일반 텍스트에는 거의 나타나지 않습니다. */
+    public static final char ESCAPE_CHARACTER = '\uFFFF';
+    /** 탈출 코드 뒤에 오는 문자 값의 비트 수입니다. */
+    public static final int ESCAPE_BITS = 16;
+
+    /** 헤더의 각 부분(문자 수, 트리 구조 비트, 말단 문자) 뒤에 오는 구분 바이트입니다. */
+    public static final int SEPARATOR = 255;
+
+    /** 인터리브 스트림 개수의 상한입니다. */
+    public static final int MAX_STREAMS = 16;
+
+    /** 동기점 색인의 문자 서명에서 문자 하나가 차지하는 비트입니다. 64개 비트에 문자를 고르게 흩어 놓습니다. */
+    public static long signatureBit(char ch) {
+        return 1L << ((ch * 0x9E3779B1) >>> 26);
+    }
+
+    /** 문자 수가 blockChars인 블록의 동기점 개수입니다. */
+    public static int syncPoints(long blockChars) {
+        return (int) ((blockChars + SYNC_INTERVAL - 1) / SYNC_INTERVAL);
+    }
+
+    /**
+     * 헤더의 문자 수가 남은 데이터로 나타낼 수 있는 크기인지 확인합니다. 본문의 문자는 하나에 1비트 이상이므로,
+     * 남은 바이트의 8배를 넘으면 손상된 헤더입니다. 헤더를 믿고 출력 버퍼를 미리 할당하기 전에 사용합니다.
+     */
+    public static void checkBlockChars(long blockChars, long available) throws CorruptDataException {
+        if (blockChars < 0 || blockChars > 8 * available) {
+            throw new CorruptDataException("파일 형식이 올바르지 않습니다: 문자 수가 데이터의 크기보다 큽니다.");
+        }
+    }
+
+    /** 저장 블록의 바이트 수가 남은 데이터의 크기를 넘지 않는지 확인합니다. */
+    public static void checkStoredBytes(long storedBytes, long available) throws CorruptDataException {
+        if (storedBytes < 0 || storedBytes > available) {
+            throw new CorruptDataException("파일의 끝에 도달했습니다.");
+        }
+    }
+
+    private HuffmanFormat() { }
+}
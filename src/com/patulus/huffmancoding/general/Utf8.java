@@ -0,0 +1,65 @@
+package com.patulus.huffmancoding.general;
+
+import com.patulus.huffmancoding.job.CorruptDataException;
+
+/**
+ * 헤더의 말단 문자와 복원 결과에 쓰는 UTF-8 부호화입니다.
+ * Compressor, Decompressor, CodecEngine이 같은 규칙으로 말단 문자를 쓰고 읽도록 이 클래스를 함께 사용합니다.
+ * 문자는 UTF-16 단위 하나씩 다루므로, 짝이 없는 대리 문자는 String.getBytes()와 같이 '?' 하나로 씁니다.
+ */
+public final class Utf8 {
+    /** 문자 하나(UTF-16 단위)를 UTF-8로 부호화한 바이트 수의 상한입니다. */
+    public static final int MAX_CHAR_BYTES = 3;
+
+    /** 문자 하나를 UTF-8로 부호화한 바이트 수입니다. */
+    public static int length(char ch) {
+        if (ch < 0x80 || Character.isSurrogate(ch)) return 1;
+        if (ch < 0x800) return 2;
+        return 3;
+    }
+
+    /** 문자 하나를 UTF-8로 부호화해 쓰고 다음 위치를 반환합니다. String.getBytes()와 같은 결과입니다. */
+    public static int encode(byte[] dst, int p, char ch) {
+        if (Character.isSurrogate(ch)) {
+            dst[p++] = '?';
+        } else if (ch < 0x80) {
+            dst[p++] = (byte) ch;
+        } else if (ch < 0x800) {
+            dst[p++] = (byte) (0xC0 | (ch >> 6));
+            dst[p++] = (byte) (0x80 | (ch & 0x3F));
+        } else {
+            dst[p++] = (byte) (0xE0 | (ch >> 12));
+            dst[p++] = (byte) (0x80 | ((ch >> 6) & 0x3F));
+            dst[p++] = (byte) (0x80 | (ch & 0x3F));
+        }
+        return p;
+    }
+
+    /** 첫 번째 바이트로 문자 하나의 UTF-8 바이트 수를 반환합니다. */
+    public static int sequenceLength(int first) throws CorruptDataException {
+        // 0xxxxxxx
+        if ((first & 0x80) == 0) return 1;
+        // 110xxxxx 10xxxxxx
+        if ((first & 0xE0) == 0xC0) return 2;
+        // 1110xxxx 10xxxxxx 10xxxxxx
+        if ((first & 0xF0) == 0xE0) return 3;
+        // 11110xxx 10xxxxxx 10xxxxxx 10xxxxxx
+        if ((first & 0xF8) == 0xF0) return 4;
+        throw new CorruptDataException("잘못된 UTF-8 인코딩입니다.");
+    }
+
+    /** 바이트열을 문자 하나로 복원합니다. 4바이트 문자는 앞쪽 대리 문자가 됩니다. */
+    public static char decode(byte[] src, int off, int numBytes) throws CorruptDataException {
+        int value = src[off] & (0xFF >> (numBytes + (numBytes > 1 ? 1 : 0)));
+        for (int i = 1; i < numBytes; ++i) {
+            int next = src[off + i];
+            if ((next & 0xC0) != 0x80) {
+                throw new CorruptDataException("잘못된 UTF-8 인코딩입니다.");
+            }
+            value = (value << 6) | (next & 0x3F);
+        }
+        return (numBytes == 4) ? Character.highSurrogate(value) : (char) value;
+    }
+
+    private Utf8() { }
+}
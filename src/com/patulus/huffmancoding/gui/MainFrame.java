@@ -217,6 +217,9 @@ public class MainFrame extends JFrame implements DropTargetListener {
                 volumeArea.setText(String.format("압축 전 용량: %dBytes\n", CompressorData.getSrcVolume(compressor)));
                 volumeArea.append(String.format("압축 후 용량: %dBytes\n", CompressorData.getOutVolume(compressor)));
                 volumeArea.append(String.format("압축률: %f%s\n", (1-((double) CompressorData.getOutVolume(compressor) / CompressorData.getSrcVolume(compressor))) * 100, "%"));
+                if (CompressorData.isStored(compressor)) {
+                    volumeArea.append("허프만 부호화가 이득이 없어 원본을 그대로 저장했습니다.\n");
+                }
                 volumeArea.append(String.format("압축에 걸린 시간: %fms\n", CompressorData.getElapsedTime(compressor)));
                 volumeArea.select(0, 0);
 
@@ -0,0 +1,10 @@
+package com.patulus.huffmancoding.job;
+
+/** 작업이 취소되어 중단되었음을 나타냅니다. */
+public class CancelledException extends CodecException {
+    private static final long serialVersionUID = 1L;
+
+    public CancelledException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.patulus.huffmancoding.job;
+
+import java.io.IOException;
+
+/** 압축 또는 복원 작업이 실패했음을 나타냅니다. 원인별 하위 예외가 있습니다. */
+public class CodecException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    public CodecException(String message) {
+        super(message);
+    }
+}
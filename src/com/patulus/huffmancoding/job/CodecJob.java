@@ -0,0 +1,76 @@
+package com.patulus.huffmancoding.job;
+
+import com.patulus.huffmancoding.compressor.Compressor;
+import com.patulus.huffmancoding.decompressor.Decompressor;
+
+import java.io.IOException;
+
+/**
+ * 파일 하나를 압축하거나 복원하는 작업입니다.
+ * 다른 스레드에서 cancel()을 호출하거나 제한 시간을 지정해 오래 걸리는 작업을 중단할 수 있습니다.
+ */
+public class CodecJob {
+    private final String path;
+    private final boolean compress;
+    private final JobControl control;
+
+    private CodecJob(String path, boolean compress) {
+        this.path = path;
+        this.compress = compress;
+        this.control = new JobControl();
+    }
+
+    /** 파일을 압축하는 작업을 만듭니다. */
+    public static CodecJob compress(String path) {
+        return new CodecJob(path, true);
+    }
+
+    /** 압축 파일을 복원하는 작업을 만듭니다. */
+    public static CodecJob decompress(String path) {
+        return new CodecJob(path, false);
+    }
+
+    public CodecJob setListener(ProgressListener listener) {
+        control.setListener(listener);
+        return this;
+    }
+
+    /** 작업 시작부터 끝까지 허용하는 시간(ms)을 지정합니다. */
+    public CodecJob setTimeBudget(long millis) {
+        control.setTimeBudget(millis);
+        return this;
+    }
+
+    /** 작업을 취소합니다. 다른 스레드에서 호출할 수 있습니다. */
+    public void cancel() {
+        control.cancel();
+    }
+
+    /**
+     * 작업을 수행합니다. 작업이 끝나거나 중단되면 스트림을 닫습니다.
+     *
+     * @throws CancelledException 작업이 취소된 경우
+     * @throws DeadlineExceededException 제한 시간을 넘긴 경우
+     * @throws CorruptDataException 압축 파일이 손상된 경우
+     */
+    public void run() throws IOException {
+        if (compress) {
+            Compressor compressor = new Compressor(path);
+            compressor.setJobControl(control);
+            try {
+                compressor.run();
+            } finally {
+                compressor.close();
+            }
+        } else {
+            Decompressor decompressor = new Decompressor(path);
+            decompressor.setJobControl(control);
+            decompressor.setPreview(false);
+            try {
+                decompressor.run();
+            } finally {
+                decompressor.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.patulus.huffmancoding.job;
+
+/** 압축 데이터가 잘렸거나 형식이 올바르지 않아 복원할 수 없음을 나타냅니다. */
+public class CorruptDataException extends CodecException {
+    private static final long serialVersionUID = 1L;
+
+    public CorruptDataException(String message) {
+        super(message);
+    }
+}
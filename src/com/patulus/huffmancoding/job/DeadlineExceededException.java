@@ -0,0 +1,10 @@
+package com.patulus.huffmancoding.job;
+
+/** 작업이 제한 시간 안에 끝나지 않아 중단되었음을 나타냅니다. */
+public class DeadlineExceededException extends CodecException {
+    private static final long serialVersionUID = 1L;
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
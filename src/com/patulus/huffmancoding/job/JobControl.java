@@ -0,0 +1,53 @@
+package com.patulus.huffmancoding.job;
+
+/**
+ * 작업의 진행 상황 전달, 취소, 제한 시간을 관리합니다.
+ * 작업은 일정 분량마다 checkpoint()를 호출하며, 그때 취소 또는 제한 시간 초과를 확인해 예외를 던집니다.
+ */
+public class JobControl {
+    /** 작업이 checkpoint()를 호출하는 간격(문자 또는 바이트 수)입니다. */
+    public static final int CHECK_INTERVAL = 1 << 16;
+
+    private volatile boolean cancelled;
+    private volatile ProgressListener listener;
+    /** 제한 시간(ns)입니다. 0이면 제한이 없습니다. */
+    private volatile long timeBudget;
+    /** 제한 시각(System.nanoTime 기준)입니다. */
+    private volatile long deadline;
+
+    public void setListener(ProgressListener listener) {
+        this.listener = listener;
+    }
+
+    /** 작업 시작부터 끝까지 허용하는 시간(ms)을 지정합니다. 0이면 제한이 없습니다. */
+    public void setTimeBudget(long millis) {
+        this.timeBudget = millis * 1000000;
+    }
+
+    /** 작업을 취소합니다. 작업은 다음 checkpoint()에서 중단됩니다. */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    public boolean isCancelled() { return this.cancelled; }
+
+    /** 작업 시작을 알립니다. 제한 시간은 이때부터 계산합니다. */
+    public void start() {
+        deadline = System.nanoTime() + timeBudget;
+    }
+
+    /** 진행 상황을 전달하고, 취소되었거나 제한 시간을 넘겼으면 예외를 던집니다. */
+    public void checkpoint(Phase phase, long bytes, long symbols) throws CodecException {
+        if (cancelled) {
+            throw new CancelledException("작업이 취소되었습니다.");
+        }
+        if (timeBudget > 0 && System.nanoTime() - deadline > 0) {
+            throw new DeadlineExceededException("제한 시간을 초과했습니다.");
+        }
+
+        ProgressListener current = listener;
+        if (current != null) {
+            current.onProgress(phase, bytes, symbols);
+        }
+    }
+}
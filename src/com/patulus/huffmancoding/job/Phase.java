@@ -0,0 +1,13 @@
+package com.patulus.huffmancoding.job;
+
+/** 압축 또는 복원 작업의 진행 단계입니다. */
+public enum Phase {
+    /** 문자 출현 횟수를 세고 있습니다. */
+    COUNTING,
+    /** 본문을 부호화하고 있습니다. */
+    ENCODING,
+    /** 본문을 복호화하고 있습니다. */
+    DECODING,
+    /** 작업을 마쳤습니다. */
+    FINISHED
+}
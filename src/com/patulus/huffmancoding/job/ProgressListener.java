@@ -0,0 +1,12 @@
+package com.patulus.huffmancoding.job;
+
+/** 작업의 진행 상황을 전달받습니다. 작업 스레드에서 호출되므로 오래 걸리는 일을 하지 않아야 합니다. */
+@FunctionalInterface
+public interface ProgressListener {
+    /**
+     * @param phase 현재 단계
+     * @param bytes 현재 단계에서 읽은 바이트 수
+     * @param symbols 현재 단계에서 처리한 문자 수
+     */
+    void onProgress(Phase phase, long bytes, long symbols);
+}
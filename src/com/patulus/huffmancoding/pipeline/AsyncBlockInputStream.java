@@ -0,0 +1,137 @@
+package com.patulus.huffmancoding.pipeline;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 읽기 전용 스레드가 원본 스트림을 미리 읽어 링 버퍼에 채우는 입력 스트림입니다.
+ * 부호화(또는 복호화) 단계가 CPU를 쓰는 동안 다음 블록의 디스크 읽기가 함께 진행됩니다.
+ */
+public class AsyncBlockInputStream extends InputStream {
+    /** 블록 하나의 크기입니다. */
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+    /** 링 버퍼의 블록 개수입니다. */
+    public static final int DEFAULT_BLOCK_COUNT = 4;
+
+    private final InputStream source;
+    private final BlockRing ring;
+    private final Thread readerThread;
+
+    /** 현재 읽고 있는 칸과 칸 안의 위치입니다. */
+    private int slot;
+    private int pos;
+    private int limit;
+    /** 원본 스트림의 끝에 도달했는지 여부입니다. */
+    private boolean eof;
+    private volatile boolean closed;
+
+    public AsyncBlockInputStream(InputStream source) {
+        this(source, DEFAULT_BLOCK_COUNT, DEFAULT_BLOCK_SIZE);
+    }
+
+    public AsyncBlockInputStream(InputStream source, int blockCount, int blockSize) {
+        this.source = source;
+        this.ring = new BlockRing(blockCount, blockSize);
+
+        this.slot = -1;
+        this.pos = 0;
+        this.limit = 0;
+
+        this.readerThread = new Thread(this::fill, "hfm-reader");
+        this.readerThread.setDaemon(true);
+        this.readerThread.start();
+    }
+
+    /** (읽기 단계) 원본 스트림을 블록 단위로 읽어 링 버퍼를 채웁니다. */
+    private void fill() {
+        try {
+            while (!closed) {
+                int writeSlot = ring.acquireWrite();
+                byte[] block = ring.block(writeSlot);
+
+                // 블록을 가능한 한 가득 채운 뒤 넘깁니다.
+                int length = 0;
+                int n = 0;
+                while (length < block.length && (n = source.read(block, length, block.length - length)) != -1) {
+                    length += n;
+                }
+
+                if (length > 0) {
+                    ring.publish(writeSlot, length);
+                }
+                if (n == -1) {
+                    break;
+                }
+            }
+        } catch (IOException ex) {
+            ring.fail(ex);
+        } finally {
+            ring.close();
+        }
+    }
+
+    /** 현재 칸을 다 읽었으면 반납하고 다음 칸을 가져옵니다. 더 읽을 칸이 없으면 false를 반환합니다. */
+    private boolean nextBlock() throws IOException {
+        if (closed) {
+            throw new IOException("스트림이 닫혔습니다.");
+        }
+        if (eof) {
+            return false;
+        }
+
+        if (slot != -1) {
+            ring.release(slot);
+            slot = -1;
+        }
+
+        int readSlot = ring.acquireRead();
+        if (readSlot == -1) {
+            eof = true;
+            return false;
+        }
+
+        slot = readSlot;
+        pos = 0;
+        limit = ring.length(readSlot);
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (pos >= limit && !nextBlock()) {
+            return -1;
+        }
+        return ring.block(slot)[pos++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (pos >= limit && !nextBlock()) {
+            return -1;
+        }
+
+        int n = Math.min(len, limit - pos);
+        System.arraycopy(ring.block(slot), pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return limit - pos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+
+        // 대기 중인 읽기 스레드를 깨우고 원본 스트림을 닫습니다.
+        ring.fail(new IOException("스트림이 닫혔습니다."));
+        readerThread.interrupt();
+        source.close();
+    }
+}
@@ -0,0 +1,123 @@
+package com.patulus.huffmancoding.pipeline;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 부호화 단계가 채운 블록을 쓰기 전용 스레드가 대상 스트림에 쓰는 출력 스트림입니다.
+ * 링 버퍼가 가득 차면 부호화 단계가 대기하므로 디스크가 느려도 메모리 사용량이 일정합니다.
+ */
+public class AsyncBlockOutputStream extends OutputStream {
+    private final OutputStream sink;
+    private final BlockRing ring;
+    private final Thread writerThread;
+
+    /** 현재 채우고 있는 칸과 칸 안의 위치입니다. */
+    private int slot;
+    private int pos;
+    private boolean closed;
+
+    public AsyncBlockOutputStream(OutputStream sink) {
+        this(sink, AsyncBlockInputStream.DEFAULT_BLOCK_COUNT, AsyncBlockInputStream.DEFAULT_BLOCK_SIZE);
+    }
+
+    public AsyncBlockOutputStream(OutputStream sink, int blockCount, int blockSize) {
+        this.sink = sink;
+        this.ring = new BlockRing(blockCount, blockSize);
+
+        this.slot = -1;
+        this.pos = 0;
+
+        this.writerThread = new Thread(this::drain, "hfm-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /** (쓰기 단계) 링 버퍼의 블록을 대상 스트림에 씁니다. */
+    private void drain() {
+        try {
+            int readSlot;
+            while ((readSlot = ring.acquireRead()) != -1) {
+                sink.write(ring.block(readSlot), 0, ring.length(readSlot));
+                ring.release(readSlot);
+            }
+        } catch (IOException ex) {
+            ring.fail(ex);
+        }
+    }
+
+    /** 채울 칸이 없으면 새 칸을 가져옵니다. */
+    private void ensureSlot() throws IOException {
+        if (closed) {
+            throw new IOException("스트림이 닫혔습니다.");
+        }
+        if (slot == -1) {
+            slot = ring.acquireWrite();
+            pos = 0;
+        }
+    }
+
+    /** 채우던 칸을 쓰기 단계로 넘깁니다. */
+    private void publish() {
+        if (slot != -1 && pos > 0) {
+            ring.publish(slot, pos);
+            slot = -1;
+            pos = 0;
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureSlot();
+        ring.block(slot)[pos++] = (byte) b;
+        if (pos == ring.blockSize()) {
+            publish();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            ensureSlot();
+
+            int n = Math.min(len, ring.blockSize() - pos);
+            System.arraycopy(b, off, ring.block(slot), pos, n);
+            pos += n;
+            off += n;
+            len -= n;
+
+            if (pos == ring.blockSize()) {
+                publish();
+            }
+        }
+    }
+
+    /** 채운 블록이 모두 쓰일 때까지 기다린 뒤 대상 스트림을 비웁니다. */
+    @Override
+    public void flush() throws IOException {
+        if (closed) return;
+
+        publish();
+        ring.awaitDrained();
+        sink.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+
+        try {
+            flush();
+        } finally {
+            closed = true;
+            ring.close();
+            try {
+                writerThread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            sink.close();
+        }
+        ring.checkFailure();
+    }
+}
@@ -0,0 +1,180 @@
+package com.patulus.huffmancoding.pipeline;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 생산자 스레드 하나와 소비자 스레드 하나가 재사용 가능한 바이트 배열을 주고받는 고정 크기 링 버퍼입니다.
+ * 빈 칸이 없으면 생산자가, 채워진 칸이 없으면 소비자가 대기하므로 두 단계 사이에 배압이 걸립니다.
+ */
+public class BlockRing {
+    /** 각 칸의 바이트 배열입니다. 한 번 할당한 뒤 계속 재사용합니다. */
+    private final byte[][] blocks;
+    /** 각 칸에 채워진 바이트 수입니다. */
+    private final int[] lengths;
+
+    /** 생산자가 다음에 채울 칸과 소비자가 다음에 읽을 칸입니다. */
+    private int writeIdx;
+    private int readIdx;
+    /** 소비자가 다음에 반납할 칸입니다. 칸은 받은 순서대로 반납해야 합니다. */
+    private int releaseIdx;
+    /** 생산자가 채웠지만 소비자가 아직 가져가지 않은 칸의 수입니다. */
+    private int available;
+    /** 생산자가 채웠지만 소비자가 아직 반납하지 않은 칸의 수입니다. */
+    private int filled;
+
+    /** 생산자가 더 이상 채우지 않음을 표시합니다. */
+    private boolean closed;
+    /** 어느 한쪽 단계에서 발생한 오류입니다. */
+    private IOException failure;
+
+    private final ReentrantLock lock;
+    private final Condition notFull;
+    private final Condition notEmpty;
+
+    public BlockRing(int blockCount, int blockSize) {
+        if (blockCount < 1 || blockSize < 1) {
+            throw new IllegalArgumentException("링 버퍼의 크기가 올바르지 않습니다.");
+        }
+
+        this.blocks = new byte[blockCount][blockSize];
+        this.lengths = new int[blockCount];
+
+        this.lock = new ReentrantLock();
+        this.notFull = lock.newCondition();
+        this.notEmpty = lock.newCondition();
+    }
+
+    /** (생산자) 비어 있는 칸을 얻습니다. 빈 칸이 없으면 소비자가 반납할 때까지 대기합니다. */
+    public int acquireWrite() throws IOException {
+        lock.lock();
+        try {
+            while (filled == blocks.length && failure == null) {
+                notFull.await();
+            }
+            checkFailure();
+
+            return writeIdx;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("링 버퍼 대기 중 중단되었습니다.");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** (생산자) 채운 칸을 소비자에게 넘깁니다. */
+    public void publish(int slot, int length) {
+        lock.lock();
+        try {
+            lengths[slot] = length;
+            writeIdx = (slot + 1) % blocks.length;
+            ++available;
+            ++filled;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** (소비자) 채워진 칸을 얻습니다. 생산자가 닫았고 남은 칸이 없으면 -1을 반환합니다. */
+    public int acquireRead() throws IOException {
+        lock.lock();
+        try {
+            while (available == 0 && !closed && failure == null) {
+                notEmpty.await();
+            }
+            checkFailure();
+            if (available == 0) {
+                return -1;
+            }
+
+            int slot = readIdx;
+            readIdx = (readIdx + 1) % blocks.length;
+            --available;
+
+            return slot;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("링 버퍼 대기 중 중단되었습니다.");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** (소비자) 다 읽은 칸을 생산자에게 반납합니다. 생산자가 반납된 칸부터 다시 채우므로 받은 순서대로 반납해야 합니다. */
+    public void release(int slot) {
+        lock.lock();
+        try {
+            if (slot != releaseIdx || filled == available) {
+                throw new IllegalStateException("링 버퍼의 칸을 받은 순서대로 반납해야 합니다: " + slot);
+            }
+            releaseIdx = (slot + 1) % blocks.length;
+            --filled;
+            notFull.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** (생산자) 모든 칸이 반납될 때까지 대기합니다. */
+    public void awaitDrained() throws IOException {
+        lock.lock();
+        try {
+            while (filled > 0 && failure == null) {
+                notFull.await();
+            }
+            checkFailure();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("링 버퍼 대기 중 중단되었습니다.");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** (생산자) 더 이상 채울 칸이 없음을 알립니다. */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** 오류를 기록하고 대기 중인 양쪽 단계를 모두 깨웁니다. */
+    public void fail(IOException ex) {
+        lock.lock();
+        try {
+            if (failure == null) {
+                failure = ex;
+            }
+            notFull.signalAll();
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** 기록된 오류가 있으면 던집니다. */
+    public void checkFailure() throws IOException {
+        lock.lock();
+        try {
+            if (failure != null) {
+                throw new IOException(failure.getMessage(), failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public byte[] block(int slot) { return this.blocks[slot]; }
+
+    public int length(int slot) { return this.lengths[slot]; }
+
+    public int blockSize() { return this.blocks[0].length; }
+}
@@ -0,0 +1,215 @@
+package com.patulus.huffmancoding.server;
+
+import com.patulus.huffmancoding.compressor.Compressor;
+import com.patulus.huffmancoding.decompressor.Decompressor;
+import com.patulus.huffmancoding.engine.CodecEngine;
+import com.patulus.huffmancoding.general.CountingInputStream;
+import com.patulus.huffmancoding.general.CountingOutputStream;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 한 번 띄워 두고 계속 사용하는 압축 서버입니다.
+ * 파일마다 JVM을 새로 띄우지 않으므로, 작은 요청이 많아도 JIT 컴파일된 코드를 계속 재사용합니다.
+ *
+ * POST /compress    요청 본문(UTF-8 텍스트)을 압축해 응답 본문으로 돌려줍니다.
+ * POST /decompress  요청 본문(.hfm)을 복원해 응답 본문으로 돌려줍니다.
+ * GET  /metrics     누적 통계를 돌려줍니다.
+ *
+ * 작은 본문은 모두 읽은 뒤 결과를 만들어 응답하므로, 손상된 데이터를 400으로 알릴 수 있습니다.
+ * 큰 본문은 메모리에 모으지 않고 청크 전송으로 흘려보냅니다. 이때는 응답 헤더를 먼저 보내므로,
+ * 도중에 실패하면 연결을 끊어 응답이 잘렸음을 알립니다.
+ */
+public class CompressionServer {
+    public static final int DEFAULT_PORT = 8080;
+    /** 동시에 처리하는 요청 수의 기본값입니다. */
+    public static final int DEFAULT_MAX_CONNECTIONS = 64;
+    /** 메모리에 모아 한 번에 처리하는 요청 본문 크기의 기본 상한입니다. 이보다 크면 흘려보내며 처리합니다. */
+    public static final int DEFAULT_BUFFERED_BODY_SIZE = 1024 * 1024;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    /** 동시에 처리하는 요청 수를 제한합니다. 초과한 요청은 503으로 거절합니다. */
+    private final Semaphore permits;
+    private final int bufferedBodySize;
+    private final ServerMetrics metrics;
+    /** 압축과 복원 요청이 함께 사용하는 코덱입니다. 작업 공간을 요청 사이에 재사용합니다. */
+    private final CodecEngine engine;
+
+    public CompressionServer(int port) throws IOException {
+        this(port, DEFAULT_MAX_CONNECTIONS, DEFAULT_BUFFERED_BODY_SIZE);
+    }
+
+    public CompressionServer(int port, int maxConnections, int bufferedBodySize) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = newExecutor(maxConnections);
+        this.permits = new Semaphore(maxConnections);
+        this.bufferedBodySize = bufferedBodySize;
+        this.metrics = new ServerMetrics();
+        this.engine = new CodecEngine();
+
+        server.createContext("/compress", exchange -> handle(exchange, true));
+        server.createContext("/decompress", exchange -> handle(exchange, false));
+        server.createContext("/metrics", this::handleMetrics);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * 요청 처리 스레드 풀을 만듭니다.
+     * 가상 스레드를 지원하는 JDK(21 이상)이면 요청마다 가상 스레드를, 아니면 고정 크기 스레드 풀을 사용합니다.
+     */
+    private static ExecutorService newExecutor(int maxConnections) {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newFixedThreadPool(maxConnections);
+        }
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("압축 서버가 시작되었습니다: " + getPort());
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPort() { return server.getAddress().getPort(); }
+
+    public ServerMetrics getMetrics() { return this.metrics; }
+
+    /** 압축 또는 복원 요청을 처리합니다. */
+    private void handle(HttpExchange exchange, boolean compress) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            try (exchange) {
+                sendText(exchange, 405, "POST 요청만 지원합니다.");
+            }
+            return;
+        }
+        if (!permits.tryAcquire()) {
+            metrics.onReject();
+            try (exchange) {
+                sendText(exchange, 503, "동시 요청 수가 너무 많습니다.");
+            }
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        CountingInputStream in = new CountingInputStream(exchange.getRequestBody());
+        CountingOutputStream out = null;
+        boolean success = false;
+        metrics.onStart();
+        try {
+            byte[] head = in.readNBytes(bufferedBodySize + 1);
+            if (head.length <= bufferedBodySize) {
+                // 결과를 다 만든 뒤에 응답 헤더를 보내므로, 손상된 데이터이면 400으로 알릴 수 있습니다.
+                byte[] result = compress ? engine.compress(head) : engine.decompress(head);
+                exchange.sendResponseHeaders(200, result.length);
+                out = new CountingOutputStream(exchange.getResponseBody());
+                out.write(result);
+            } else {
+                // 큰 본문은 이미 읽은 앞부분과 나머지를 이어 붙여 청크 전송으로 흘려보냅니다.
+                InputStream body = new SequenceInputStream(new ByteArrayInputStream(head), in);
+                exchange.sendResponseHeaders(200, 0);
+                out = new CountingOutputStream(exchange.getResponseBody());
+                if (compress) {
+                    compressStream(body, out);
+                } else {
+                    Decompressor decompressor = new Decompressor(body, out);
+                    decompressor.setPreview(false);
+                    decompressor.run();
+                    decompressor.close();
+                }
+            }
+            out.close();
+            success = true;
+        } catch (IOException ex) {
+            if (out != null) {
+                // 응답 헤더를 이미 보냈으므로, 끝 청크를 보내지 않고 연결을 끊어 응답이 잘렸음을 알립니다.
+                System.err.println("응답을 중단합니다: " + ex.getMessage());
+                throw ex;
+            }
+            sendText(exchange, 400, ex.getMessage());
+        } finally {
+            long elapsed = System.nanoTime() - startTime;
+            long written = (out != null) ? out.getCount() : 0;
+            metrics.onFinish(in.getCount(), written, elapsed, success);
+            permits.release();
+
+            // 실패한 청크 응답은 닫지 않고 예외를 HttpServer에 넘겨 연결을 끊게 합니다.
+            if (success || out == null) exchange.close();
+
+            System.out.printf("%s %s %d -> %d Bytes, %fms%n", exchange.getRequestMethod(), exchange.getRequestURI().getPath(),
+                    in.getCount(), written, (double) elapsed / 1000000);
+        }
+    }
+
+    /**
+     * 스트림을 bufferedBodySize 단위로 나누어 블록마다 따로 압축해 씁니다.
+     * 이어 쓴 블록은 덧붙인 압축 파일과 같은 형식이므로 Decompressor가 그대로 복원합니다.
+     * 문자가 블록 사이에서 잘리지 않도록, 블록 끝에 걸친 UTF-8 바이트는 다음 블록으로 넘깁니다.
+     */
+    private void compressStream(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[bufferedBodySize];
+        int filled = 0;
+        int n;
+
+        while ((n = in.readNBytes(buffer, filled, buffer.length - filled)) > 0 || filled > 0) {
+            filled += n;
+            int cut = (filled == buffer.length) ? charBoundary(buffer, filled) : filled;
+
+            out.write(Compressor.compress(ByteBuffer.wrap(buffer, 0, cut)));
+            System.arraycopy(buffer, cut, buffer, 0, filled - cut);
+            filled -= cut;
+        }
+    }
+
+    /** 버퍼 끝에서 문자가 잘리지 않는 마지막 위치를 반환합니다. 끝에 걸친 문자가 없으면 length입니다. */
+    private static int charBoundary(byte[] buffer, int length) {
+        // UTF-8 문자는 최대 4바이트이므로 이어지는 바이트(10xxxxxx)를 세 개까지 거슬러 올라가 첫 번째 바이트를 찾습니다.
+        int start = length - 1;
+        while (start > 0 && length - start < 4 && (buffer[start] & 0xC0) == 0x80) {
+            --start;
+        }
+
+        int first = buffer[start] & 0xFF;
+        int numBytes = (first >= 0xF0) ? 4 : (first >= 0xE0) ? 3 : (first >= 0xC0) ? 2 : 1;
+        return (start + numBytes > length) ? start : length;
+    }
+
+    /** 통계 요청을 처리합니다. */
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            sendText(exchange, 200, metrics.toString());
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.patulus.huffmancoding.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** 압축 서버의 누적 통계입니다. 여러 요청 처리 스레드가 동시에 갱신합니다. */
+public class ServerMetrics {
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong bytesIn = new AtomicLong();
+    private final AtomicLong bytesOut = new AtomicLong();
+    private final AtomicLong elapsedNanos = new AtomicLong();
+    private final AtomicLong active = new AtomicLong();
+
+    void onStart() {
+        active.incrementAndGet();
+    }
+
+    void onFinish(long in, long out, long nanos, boolean success) {
+        active.decrementAndGet();
+        requests.incrementAndGet();
+        if (!success) failed.incrementAndGet();
+        bytesIn.addAndGet(in);
+        bytesOut.addAndGet(out);
+        elapsedNanos.addAndGet(nanos);
+    }
+
+    void onReject() {
+        rejected.incrementAndGet();
+    }
+
+    public long getRequests() { return requests.get(); }
+
+    public long getRejected() { return rejected.get(); }
+
+    public long getFailed() { return failed.get(); }
+
+    public long getBytesIn() { return bytesIn.get(); }
+
+    public long getBytesOut() { return bytesOut.get(); }
+
+    public long getActive() { return active.get(); }
+
+    /** 요청 하나의 평균 처리 시간(ms)입니다. */
+    public double getAverageTime() {
+        long count = requests.get();
+        return (count == 0) ? 0 : (double) elapsedNanos.get() / count / 1000000;
+    }
+
+    @Override
+    public String toString() {
+        return "requests " + getRequests() + "\n"
+                + "active " + getActive() + "\n"
+                + "rejected " + getRejected() + "\n"
+                + "failed " + getFailed() + "\n"
+                + "bytes_in " + getBytesIn() + "\n"
+                + "bytes_out " + getBytesOut() + "\n"
+                + "average_ms " + getAverageTime() + "\n";
+    }
+}
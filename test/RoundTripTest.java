@@ -0,0 +1,488 @@
+import com.patulus.huffmancoding.cache.ResultCache;
+import com.patulus.huffmancoding.compressor.Compressor;
+import com.patulus.huffmancoding.compressor.FrequencyHistogram;
+import com.patulus.huffmancoding.decompressor.Decompressor;
+import com.patulus.huffmancoding.decompressor.SearchHit;
+import com.patulus.huffmancoding.decompressor.Searcher;
+import com.patulus.huffmancoding.engine.CodecEngine;
+import com.patulus.huffmancoding.general.HuffmanFormat;
+import com.patulus.huffmancoding.job.CodecException;
+import com.patulus.huffmancoding.pipeline.AsyncBlockInputStream;
+import com.patulus.huffmancoding.pipeline.AsyncBlockOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * 압축 형식의 기능마다 압축한 뒤 복원한 결과가 원본과 같은지 확인합니다. 테스트 프레임워크 없이 javac와 java만으로 실행합니다.
+ *
+ * javac -encoding UTF-8 -d out $(find src test -name '*.java')
+ * java -Dfile.encoding=UTF-8 -cp out RoundTripTest
+ *
+ * 실패한 확인이 있으면 종료 코드 1로 끝납니다. 압축기와 복원기가 표준 출력에 쓰는 시간 기록은 감춥니다.
+ */
+public class RoundTripTest {
+    /** 결과를 쓰는 표준 출력입니다. */
+    private static final PrintStream REPORT = System.out;
+
+    /** 경계 입력: 빈 입력, 1자, 2자, 표에 이득이 없는 높은 엔트로피 입력입니다. */
+    private static final String EMPTY = "";
+    private static final String ONE_CHAR = "a";
+    private static final String TWO_CHARS = "가a";
+
+    private static Path dir;
+    private static int passed;
+    private static int failed;
+
+    public static void main(String[] args) throws IOException {
+        dir = Files.createTempDirectory("hfm-test");
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            fileRoundTrip();
+            interleavedStreams();
+            parallelEncode();
+            parallelDecode();
+            ringBuffer();
+            sampling();
+            histogram();
+            append();
+            cache();
+            search();
+            inMemory();
+            codecEngine();
+        } finally {
+            System.setOut(REPORT);
+            deleteRecursively(dir);
+        }
+
+        REPORT.println("통과 " + passed + "개, 실패 " + failed + "개");
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    /** 파일 압축: 경계 입력과 큰 텍스트의 복원 결과, 미리 계산한 크기, 저장 블록 선택을 확인합니다. */
+    private static void fileRoundTrip() throws IOException {
+        for (byte[] data : List.of(utf8(ONE_CHAR), utf8(TWO_CHARS), utf8(text(200_000, 1)), utf8(highEntropy(50_000)))) {
+            Path src = write("file.txt", data);
+            Compressor compressor = new Compressor(src.toString());
+            long expected = compressor.getCompressedLength();
+            run(compressor);
+
+            byte[] hfm = Files.readAllBytes(hfmOf(src));
+            check("파일 크기 계산 (" + data.length + "바이트)", expected == hfm.length);
+            check("파일 복원 (" + data.length + "바이트)", Arrays.equals(decompressFile(src), data));
+        }
+
+        Path highEntropy = write("entropy.txt", utf8(highEntropy(50_000)));
+        run(new Compressor(highEntropy.toString()));
+        check("높은 엔트로피 입력은 저장 블록", Files.readAllBytes(hfmOf(highEntropy))[0] == HuffmanFormat.STORED);
+
+        Path text = write("indexed.txt", utf8(text(200_000, 2)));
+        run(new Compressor(text.toString()));
+        byte[] hfm = Files.readAllBytes(hfmOf(text));
+        check("파일의 단일 스트림 본문에 동기점 색인", hfm[0] == HuffmanFormat.EXTENDED && (hfm[1] & HuffmanFormat.FLAG_SYNC_INDEX) != 0);
+
+        // 파일 압축은 빈 파일을 거부합니다. 빈 입력은 메모리 API로 압축합니다. 압축기가 쓰는 오류 메시지는 감춥니다.
+        Path empty = write("empty.txt", new byte[0]);
+        PrintStream err = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            check("빈 파일은 예외", throwsCodecException(() -> run(new Compressor(empty.toString()))));
+        } finally {
+            System.setErr(err);
+        }
+    }
+
+    /** 인터리브 스트림: 복원 결과와, 미리 계산한 크기가 상한인지 확인합니다. */
+    private static void interleavedStreams() throws IOException {
+        byte[] data = utf8(text(300_000, 3));
+        for (int streams : new int[]{2, 4, HuffmanFormat.MAX_STREAMS}) {
+            Path src = write("streams.txt", data);
+            Compressor compressor = new Compressor(src.toString());
+            compressor.setStreams(streams);
+            long bound = compressor.getCompressedLength();
+            run(compressor);
+
+            check("스트림 " + streams + "개 크기 상한", Files.size(hfmOf(src)) <= bound);
+            check("스트림 " + streams + "개 복원", Arrays.equals(decompressFile(src), data));
+        }
+    }
+
+    /** 병렬 부호화: 한 스레드로 쓴 결과(동기점 색인 포함)와 바이트 단위로 같은지 확인합니다. */
+    private static void parallelEncode() throws IOException {
+        byte[] data = utf8(text(3_000_000, 4));
+        Path sequential = write("sequential.txt", data);
+        run(new Compressor(sequential.toString()));
+
+        for (int parallelism : new int[]{2, 3, 8}) {
+            Path parallel = write("parallel.txt", data);
+            Compressor compressor = new Compressor(parallel.toString());
+            compressor.setParallelism(parallelism);
+            run(compressor);
+
+            check("병렬 부호화 " + parallelism + "스레드", Arrays.equals(Files.readAllBytes(hfmOf(parallel)), Files.readAllBytes(hfmOf(sequential))));
+        }
+    }
+
+    /** 병렬 복호화: 하나의 비트 스트림을 여러 스레드로 복원한 결과를 확인합니다. */
+    private static void parallelDecode() throws IOException {
+        byte[] data = utf8(text(3_000_000, 5));
+        Path src = write("pdecode.txt", data);
+        run(new Compressor(src.toString()));
+
+        for (int parallelism : new int[]{2, 4}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Decompressor decompressor = new Decompressor(Files.newInputStream(hfmOf(src)), out);
+            decompressor.setPreview(false);
+            decompressor.setParallelism(parallelism);
+            run(decompressor);
+
+            check("병렬 복호화 " + parallelism + "스레드", Arrays.equals(out.toByteArray(), data));
+        }
+    }
+
+    /** 링 버퍼: 블록보다 큰 데이터를 읽기·쓰기 스레드를 거쳐 그대로 옮기는지 확인합니다. */
+    private static void ringBuffer() throws IOException {
+        byte[] data = randomBytes(1_000_003);
+        Path file = dir.resolve("ring.bin");
+        try (OutputStream out = new AsyncBlockOutputStream(new FileOutputStream(file.toFile()), 3, 4096)) {
+            out.write(data, 0, 10);
+            out.write(data[10]);
+            out.write(data, 11, data.length - 11);
+        }
+        check("링 버퍼 쓰기", Arrays.equals(Files.readAllBytes(file), data));
+
+        try (InputStream in = new AsyncBlockInputStream(Files.newInputStream(file), 3, 4096)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            out.write(in.read());
+            in.transferTo(out);
+            check("링 버퍼 읽기", Arrays.equals(out.toByteArray(), data));
+        }
+    }
+
+    /** 표본 추출: 표본에 없던 문자를 탈출 코드로 쓰고 그대로 복원하는지 확인합니다. */
+    private static void sampling() throws IOException {
+        // 표본 구간이 놓치도록 드문 문자를 끝에 둡니다.
+        byte[] data = utf8(text(3_000_000, 6) + "Ω☃￿끝");
+        for (boolean random : new boolean[]{false, true}) {
+            Path src = write("sample.txt", data);
+            Compressor compressor = new Compressor(src.toString());
+            compressor.setSampling(0.01, random);
+            run(compressor);
+
+            byte[] hfm = Files.readAllBytes(hfmOf(src));
+            check("표본 표에 탈출 코드 (random=" + random + ")", hfm[0] == HuffmanFormat.EXTENDED && (hfm[1] & HuffmanFormat.FLAG_ESCAPE) != 0);
+            check("표본 표 복원 (random=" + random + ")", Arrays.equals(decompressFile(src), data));
+        }
+    }
+
+    /** 히스토그램: 다른 데이터로 만든 표로 압축해 복원하고, 히스토그램을 쓰고 읽어도 같은지 확인합니다. */
+    private static void histogram() throws IOException {
+        FrequencyHistogram histogram = FrequencyHistogram.of(write("shared.txt", utf8(text(100_000, 7))));
+        histogram.merge(FrequencyHistogram.of(write("shared2.txt", utf8(text(100_000, 8)))));
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        histogram.writeTo(serialized);
+        FrequencyHistogram restored = FrequencyHistogram.readFrom(new ByteArrayInputStream(serialized.toByteArray()));
+        check("히스토그램 직렬화", restored.getTotalChars() == histogram.getTotalChars() && restored.getUsedChars() == histogram.getUsedChars());
+
+        for (String text : List.of(text(50_000, 9) + "Ω", ONE_CHAR)) {
+            byte[] data = utf8(text);
+            Path src = write("hist.txt", data);
+            Compressor compressor = new Compressor(src.toString());
+            compressor.setHistogram(restored);
+            run(compressor);
+
+            check("공유 표 복원 (" + data.length + "바이트)", Arrays.equals(decompressFile(src), data));
+        }
+    }
+
+    /** 덧붙이기: 비슷한 데이터는 첫 블록의 표를 재사용하고('T'), 이득이 없는 데이터는 저장 블록으로 덧붙이는지 확인합니다. */
+    private static void append() throws IOException {
+        byte[] first = utf8(text(100_000, 10));
+        byte[] similar = utf8(text(50_000, 11));
+        byte[] entropy = utf8(highEntropy(20_000));
+
+        Path src = write("append.txt", first);
+        run(new Compressor(src.toString()));
+        Path hfm = hfmOf(src);
+
+        long firstLength = Files.size(hfm);
+        run(Compressor.append(hfm.toString(), write("append2.txt", similar).toString()));
+        long secondLength = Files.size(hfm);
+        run(Compressor.append(hfm.toString(), write("append3.txt", entropy).toString()));
+
+        byte[] blocks = Files.readAllBytes(hfm);
+        check("덧붙인 블록이 표를 재사용", blocks[(int) firstLength] == HuffmanFormat.REUSE);
+        check("덧붙인 블록이 저장 블록", blocks[(int) secondLength] == HuffmanFormat.STORED);
+        check("덧붙인 파일 복원", Arrays.equals(decompressFile(src), concat(first, similar, entropy)));
+    }
+
+    /** 캐시: 같은 내용은 적중해 같은 결과를 쓰고, 크기 한도를 넘으면 오래된 항목을 지우는지 확인합니다. */
+    private static void cache() throws IOException {
+        byte[] data = utf8(text(100_000, 12));
+        Path src = write("cached.txt", data);
+
+        ResultCache cache = new ResultCache(dir.resolve("cache"), 1L << 30);
+        compressWithCache(src, cache);
+        byte[] first = Files.readAllBytes(hfmOf(src));
+        compressWithCache(src, cache);
+        check("캐시 적중", cache.getHits() == 1 && cache.getMisses() == 1);
+        check("캐시 결과가 같음", Arrays.equals(Files.readAllBytes(hfmOf(src)), first));
+        check("캐시 결과 복원", Arrays.equals(decompressFile(src), data));
+
+        // 항목 하나만 들어가는 한도이면 새 항목을 넣을 때 이전 항목을 지웁니다.
+        ResultCache small = new ResultCache(dir.resolve("small"), first.length + 4096);
+        compressWithCache(src, small);
+        compressWithCache(write("other.txt", utf8(text(100_000, 13))), small);
+        compressWithCache(src, small);
+        check("캐시 제거", small.getHits() == 0 && small.getMisses() == 3);
+    }
+
+    /** 검색: 복원한 텍스트에서 직접 찾은 위치와 줄이 같은지, 검색어가 없는 블록과 구간을 건너뛰는지 확인합니다. */
+    private static void search() throws IOException {
+        // 긴 로그 중간에 드문 표시를 넣고, 한글만 있는 블록과 짧은 블록을 덧붙입니다.
+        StringBuilder log = new StringBuilder(text(2_000_000, 14));
+        for (int i = 1; i <= 5; ++i) {
+            log.insert(log.length() * i / 6, "#MARK-" + i + "#");
+        }
+        String korean = "가나다라\n마바사\n".repeat(2000);
+
+        Path src = write("search.txt", utf8(log.toString()));
+        run(new Compressor(src.toString()));
+        Path hfm = hfmOf(src);
+        run(Compressor.append(hfm.toString(), write("search2.txt", utf8(korean)).toString()));
+        run(Compressor.append(hfm.toString(), write("search3.txt", utf8(TWO_CHARS)).toString()));
+        List<String> blocks = List.of(log.toString(), korean, TWO_CHARS);
+
+        for (String pattern : List.of("#MARK-", "the", "가나", "가a", "사\u0000", "q")) {
+            Searcher searcher = new Searcher(hfm.toString());
+            List<SearchHit> hits = searcher.search(pattern);
+            searcher.close();
+
+            check("검색 [" + pattern + "]", hitsToString(hits).equals(expectedHits(blocks, pattern)));
+        }
+
+        Searcher searcher = new Searcher(hfm.toString());
+        searcher.search("#MARK-");
+        searcher.close();
+        check("표에 없는 문자의 블록을 건너뜀", searcher.getSkippedBlocks() >= 1);
+        check("문자 서명으로 구간을 건너뜀", searcher.getSkippedSegments() > 0);
+    }
+
+    /** 메모리 API: byte[], 문자열, 힙·다이렉트 ByteBuffer와 출력 버퍼 방식이 경계 입력에서도 원본을 돌려주는지 확인합니다. */
+    private static void inMemory() throws IOException {
+        for (String text : List.of(EMPTY, ONE_CHAR, TWO_CHARS, text(100_000, 15), highEntropy(10_000))) {
+            byte[] data = utf8(text);
+            String name = " (" + data.length + "바이트)";
+
+            byte[] compressed = Compressor.compress(data);
+            check("byte[] 복원" + name, Arrays.equals(Decompressor.decompress(compressed), data));
+            check("문자열 복원" + name, Decompressor.decompressString(Compressor.compress(text)).equals(text));
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+            direct.put(data).flip();
+            byte[] fromDirect = Compressor.compress(direct);
+            check("다이렉트 버퍼 압축" + name, Arrays.equals(fromDirect, compressed) && !direct.hasRemaining());
+
+            ByteBuffer dst = ByteBuffer.allocate(compressed.length);
+            int written = Compressor.compress(ByteBuffer.wrap(data), dst);
+            check("출력 버퍼 압축" + name, written == compressed.length && Arrays.equals(dst.array(), compressed));
+
+            ByteBuffer src = ByteBuffer.wrap(compressed);
+            ByteBuffer out = ByteBuffer.allocateDirect((int) Decompressor.decompressedBound(src));
+            int restored = Decompressor.decompress(src, out);
+            byte[] result = new byte[restored];
+            out.flip().get(result);
+            check("출력 버퍼 복원" + name, Arrays.equals(result, data));
+        }
+
+        byte[] empty = Compressor.compress(new byte[0]);
+        check("빈 입력은 빈 저장 블록", empty.length == 10 && empty[0] == HuffmanFormat.STORED);
+    }
+
+    /** CodecEngine: Compressor와 같은 형식과 크기의 결과를 만들고, 다른 형식의 블록도 복원하며, 작업 공간을 재사용해도 결과가 같은지 확인합니다. */
+    private static void codecEngine() throws IOException {
+        CodecEngine engine = new CodecEngine(1);
+        for (String text : List.of(EMPTY, ONE_CHAR, TWO_CHARS, text(100_000, 16), highEntropy(10_000), text(300, 17))) {
+            byte[] data = utf8(text);
+            String name = " (" + data.length + "바이트)";
+
+            byte[] compressed = engine.compress(data);
+            // 빈도가 같은 노드를 고르는 순서가 달라 트리는 다를 수 있지만, 블록 형식과 크기는 같습니다.
+            byte[] expected = Compressor.compress(data);
+            check("엔진 결과가 Compressor와 같은 크기" + name, compressed.length == expected.length && compressed[0] == expected[0]);
+            check("엔진 복원" + name, Arrays.equals(engine.decompress(compressed), data));
+            check("엔진 결과를 Decompressor로 복원" + name, Arrays.equals(Decompressor.decompress(compressed), data));
+            check("Compressor 결과를 엔진으로 복원" + name, Arrays.equals(engine.decompress(expected), data));
+
+            byte[] dst = new byte[CodecEngine.maxCompressedLength(data.length) + 3];
+            int length = engine.compress(data, 0, data.length, dst, 3);
+            byte[] out = new byte[data.length + 5];
+            int restored = engine.decompress(dst, 3, length, out, 5);
+            check("엔진 오프셋 복원" + name, restored == data.length && Arrays.equals(Arrays.copyOfRange(out, 5, 5 + restored), data));
+        }
+
+        // 엔진이 직접 만들지 않는 블록(동기점 색인, 인터리브 스트림)은 Decompressor로 넘겨 복원합니다.
+        byte[] data = utf8(text(100_000, 18));
+        Path indexed = write("engine.txt", data);
+        run(new Compressor(indexed.toString()));
+        check("엔진이 파일 압축 결과를 복원", Arrays.equals(engine.decompress(Files.readAllBytes(hfmOf(indexed))), data));
+
+        Path interleaved = write("engine4.txt", data);
+        Compressor compressor = new Compressor(interleaved.toString());
+        compressor.setStreams(4);
+        run(compressor);
+        check("엔진이 인터리브 스트림을 복원", Arrays.equals(engine.decompress(Files.readAllBytes(hfmOf(interleaved))), data));
+    }
+
+    private static void check(String name, boolean ok) {
+        if (ok) {
+            ++passed;
+        } else {
+            ++failed;
+            REPORT.println("실패: " + name);
+        }
+    }
+
+    /** 예외가 CodecException이면 true입니다. */
+    private static boolean throwsCodecException(IoAction action) throws IOException {
+        try {
+            action.run();
+            return false;
+        } catch (CodecException ex) {
+            return true;
+        }
+    }
+
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    private static void run(Compressor compressor) throws IOException {
+        try {
+            compressor.run();
+        } finally {
+            compressor.close();
+        }
+    }
+
+    private static void run(Decompressor decompressor) throws IOException {
+        try {
+            decompressor.run();
+        } finally {
+            decompressor.close();
+        }
+    }
+
+    private static void compressWithCache(Path src, ResultCache cache) throws IOException {
+        Compressor compressor = new Compressor(src.toString());
+        compressor.setCache(cache);
+        run(compressor);
+    }
+
+    /** 압축 파일을 Decompressor(String)로 복원한 결과입니다. */
+    private static byte[] decompressFile(Path src) throws IOException {
+        Decompressor decompressor = new Decompressor(hfmOf(src).toString());
+        decompressor.setPreview(false);
+        run(decompressor);
+        return Files.readAllBytes(Path.of(hfmOf(src).toString().replace(".hfm", "-decompressed.txt")));
+    }
+
+    private static Path hfmOf(Path src) {
+        return Path.of(src + ".hfm");
+    }
+
+    private static Path write(String name, byte[] data) throws IOException {
+        return Files.write(dir.resolve(name), data);
+    }
+
+    /** 블록마다 텍스트에서 직접 찾은 위치와 줄입니다. 블록 끝은 줄 끝이며, 줄이 짧으므로 생략 없이 줄 전체입니다. */
+    private static List<String> expectedHits(List<String> blocks, String pattern) {
+        List<String> hits = new ArrayList<>();
+        long base = 0;
+        for (String text : blocks) {
+            for (int idx = text.indexOf(pattern); idx != -1; idx = text.indexOf(pattern, idx + 1)) {
+                int lineStart = text.lastIndexOf('\n', idx) + 1;
+                int lineEnd = text.indexOf('\n', idx);
+                hits.add((base + idx) + ": " + text.substring(lineStart, (lineEnd == -1) ? text.length() : lineEnd));
+            }
+            base += text.length();
+        }
+        return hits;
+    }
+
+    private static List<String> hitsToString(List<SearchHit> hits) {
+        List<String> result = new ArrayList<>();
+        for (SearchHit hit : hits) {
+            result.add(hit.toString());
+        }
+        return result;
+    }
+
+    /** 영어 단어와 한글 단어로 이루어진 짧은 줄의 텍스트입니다. 같은 seed이면 같은 텍스트입니다. */
+    private static String text(int length, long seed) {
+        String[] words = {"the", "quick", "brown", "fox", "jumps", "over", "lazy", "dog", "허프만", "부호화", "압축", "복원", "log", "info", "42"};
+        Random random = new Random(seed);
+        StringBuilder builder = new StringBuilder(length + 16);
+        while (builder.length() < length) {
+            builder.append(words[random.nextInt(words.length)]);
+            builder.append((random.nextInt(10) == 0) ? '\n' : ' ');
+        }
+        builder.setLength(length);
+        return builder.toString();
+    }
+
+    /** 기본 다국어 평면의 문자를 고르게 섞은 텍스트입니다. 허프만 부호화가 이득이 없습니다. 대리 문자는 쓰지 않습니다. */
+    private static String highEntropy(int length) {
+        Random random = new Random(length);
+        StringBuilder builder = new StringBuilder(length);
+        while (builder.length() < length) {
+            char ch = (char) (0x20 + random.nextInt(0xD7FF - 0x20));
+            builder.append(ch);
+        }
+        return builder.toString();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] utf8(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] concat(byte[]... arrays) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] array : arrays) {
+            out.writeBytes(array);
+        }
+        return out.toByteArray();
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}